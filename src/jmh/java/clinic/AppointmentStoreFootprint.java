@@ -0,0 +1,64 @@
+package clinic;
+
+import java.time.LocalDateTime;
+import java.util.function.Supplier;
+
+// Compares the retained heap of the two AppointmentStore layouts.
+// Usage: java -cp target/benchmarks.jar clinic.AppointmentStoreFootprint [appointments]
+public class AppointmentStoreFootprint {
+    private static final String[] TREATMENTS = {
+            "Neural Mobilisation", "Acupuncture", "Mobilisation of Spine", "Massage", "Pool Rehabilitation"
+    };
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Physiotherapist[] therapists = new Physiotherapist[50];
+        for (int i = 0; i < therapists.length; i++) {
+            therapists[i] = new Physiotherapist(i + 1, "Therapist " + i, "Clinic", "555-0000");
+        }
+        Patient[] patients = new Patient[10_000];
+        for (int i = 0; i < patients.length; i++) {
+            patients[i] = new Patient(1000 + i, "Patient " + i, "Street", "555-1111");
+        }
+
+        System.out.printf("%,d appointments%n", count);
+        measure("List<Appointment>", () -> fill(new ListAppointmentStore(), count, therapists, patients), count);
+        measure("Columnar", () -> fill(new ColumnarAppointmentStore(count), count, therapists, patients), count);
+    }
+
+    private static AppointmentStore fill(AppointmentStore store, int count,
+                                         Physiotherapist[] therapists, Patient[] patients) {
+        LocalDateTime base = LocalDateTime.of(2025, 1, 6, 8, 0);
+        for (int i = 0; i < count; i++) {
+            LocalDateTime start = base.plusMinutes(30L * (i / therapists.length));
+            boolean booked = i % 2 == 0;
+            // A fresh string per row, as parsed from a journal or an import file
+            String treatment = new String(TREATMENTS[i % TREATMENTS.length]);
+            store.add(new Appointment(i + 1, start, start.plusMinutes(30), treatment,
+                    therapists[i % therapists.length], booked ? patients[i % patients.length] : null,
+                    booked ? AppointmentStatus.BOOKED : AppointmentStatus.AVAILABLE));
+        }
+        return store;
+    }
+
+    private static void measure(String name, Supplier<AppointmentStore> build, int count) {
+        long before = usedHeap();
+        AppointmentStore store = build.get();
+        long after = usedHeap();
+        System.out.printf("%-18s %,14d bytes  %6.1f bytes/appointment  (%d rows)%n",
+                name, after - before, (after - before) / (double) count, store.size());
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
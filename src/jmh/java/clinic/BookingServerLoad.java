@@ -0,0 +1,105 @@
+package clinic;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Load test for BookingServer over localhost: starts the server on a synthetic
+// clinic, runs closed-loop virtual users (one request in flight each) for a
+// fixed time, then prints throughput and latency percentiles. Each user does
+// 70% slot lookups, 20% searches and 10% booking attempts.
+// Usage: java -cp target/benchmarks.jar clinic.BookingServerLoad [users] [seconds] [appointments]
+public class BookingServerLoad {
+    public static void main(String[] args) throws Exception {
+        int users = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int appointments = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+
+        BookingSystem system = SyntheticClinic.build(appointments, 42);
+        BookingServer server = new BookingServer(system);
+        server.start(0);
+        String base = "http://localhost:" + server.getPort();
+
+        // A thread per user, since each blocks on its request; the client keeps
+        // its own executor, so its work never queues behind the users
+        ExecutorService clients = BookingServer.newThreadPerTaskExecutor(users);
+        HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5)).build();
+        LatencyHistogram latency = new LatencyHistogram();
+        LongAdder errors = new LongAdder();
+
+        // Warm up the handlers and the JIT before measuring
+        long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(Math.min(3, seconds));
+        runUsers(clients, users, http, base, system, warmupEnd, new LatencyHistogram(), new LongAdder());
+
+        long started = System.nanoTime();
+        runUsers(clients, users, http, base, system, started + TimeUnit.SECONDS.toNanos(seconds), latency, errors);
+        double elapsed = (System.nanoTime() - started) / 1e9;
+
+        server.stop();
+        clients.shutdown();
+
+        long requests = latency.count();
+        System.out.printf("%d users, %,d requests in %.1f s: %,.0f req/s, %d errors%n",
+                users, requests, elapsed, requests / elapsed, errors.sum());
+        System.out.printf("latency p50 %.2f ms, p99 %.2f ms, p99.9 %.2f ms, max %.2f ms%n",
+                latency.percentile(50) / 1e6, latency.percentile(99) / 1e6,
+                latency.percentile(99.9) / 1e6, latency.max() / 1e6);
+    }
+
+    private static void runUsers(ExecutorService clients, int users, HttpClient http, String base,
+                                 BookingSystem system, long deadline, LatencyHistogram latency,
+                                 LongAdder errors) throws InterruptedException {
+        int appointmentCount = system.getAppointments().size();
+        CountDownLatch done = new CountDownLatch(users);
+        for (int u = 0; u < users; u++) {
+            long seed = u;
+            clients.execute(() -> {
+                Random random = new Random(seed);
+                try {
+                    while (System.nanoTime() < deadline) {
+                        int roll = random.nextInt(10);
+                        HttpRequest request;
+                        if (roll < 7) {
+                            request = HttpRequest.newBuilder(URI.create(base + "/appointments/"
+                                    + (1 + random.nextInt(appointmentCount)))).GET().build();
+                        } else if (roll < 9) {
+                            String expertise = SyntheticClinic.EXPERTISE[random.nextInt(SyntheticClinic.EXPERTISE.length)];
+                            request = HttpRequest.newBuilder(URI.create(base + "/appointments?limit=10&expertise="
+                                    + expertise.replace(" ", "+"))).GET().build();
+                        } else {
+                            request = HttpRequest.newBuilder(URI.create(base + "/appointments/"
+                                    + (1 + random.nextInt(appointmentCount)) + "/book?patient="
+                                    + SyntheticClinic.randomPatientId(random, system)))
+                                    .POST(HttpRequest.BodyPublishers.noBody()).build();
+                        }
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+                            latency.record(System.nanoTime() - sent);
+                            // 409 is a refused booking, a normal outcome under contention
+                            if (response.statusCode() != 200 && response.statusCode() != 409) {
+                                errors.increment();
+                            }
+                        } catch (IOException e) {
+                            errors.increment();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+    }
+}
@@ -0,0 +1,152 @@
+package clinic;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// JMH regression baseline for the BookingSystem hot paths, over synthetic
+// clinics from a thousand to ten million appointments. Reports throughput and
+// sampled latency percentiles; the GC profiler adds allocation rate.
+//
+//   mvn -P benchmarks package
+//   java -cp target/benchmarks.jar clinic.BookingSystemBenchmark [size ...]
+//   or: java -jar target/benchmarks.jar BookingSystemBenchmark -prof gc -p size=1000,100000
+//
+// Measured on one core, JDK 17, -bm avgt -wi 2 -i 3 -r 2s, -Xmx3g, so without
+// the ten million clinic (us/op at 1k, 100k and 1M appointments):
+//   getPatientById        0.06    0.06     0.13
+//   hasTimeConflict       0.26    1.4      2.2
+//   byPhysiotherapist     0.39    0.53     1.6
+//   expertiseAll          0.37    0.93     7.0     served from the search cache
+//   expertiseFirstPage    0.52   16       80       134 and 2650 when merging per therapist
+//   bookThenCancel        4.6    16       23
+//   bookThenAttend        4.2    16       23
+//   generateReport      960  195000  2340000
+// First-page searches read one set per expertise; what still grows is the
+// per-therapist bookkeeping of the search cache.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class BookingSystemBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Clinic {
+        @Param({"1000", "10000", "100000", "1000000", "10000000"})
+        public int size;
+
+        BookingSystem system;
+        Appointment[] appointments;
+        String[] therapistNames;
+
+        @Setup(Level.Trial)
+        public void build() {
+            system = SyntheticClinic.build(size, 42);
+            appointments = system.getAppointments().toArray(new Appointment[0]);
+            therapistNames = system.getPhysiotherapists().stream()
+                    .map(Person::getName)
+                    .toArray(String[]::new);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        final SplittableRandom random = new SplittableRandom(7);
+    }
+
+    @Benchmark
+    public Patient getPatientById(Clinic clinic, Cursor cursor) {
+        return clinic.system.getPatientById(SyntheticClinic.FIRST_PATIENT_ID
+                + cursor.random.nextInt(clinic.system.getPatients().size()));
+    }
+
+    @Benchmark
+    public boolean hasTimeConflict(Clinic clinic, Cursor cursor) {
+        Patient patient = clinic.system.getPatientById(SyntheticClinic.FIRST_PATIENT_ID
+                + cursor.random.nextInt(clinic.system.getPatients().size()));
+        Appointment slot = clinic.appointments[cursor.random.nextInt(clinic.appointments.length)];
+        return clinic.system.hasTimeConflict(patient, slot.getStartTime(), slot.getEndTime());
+    }
+
+    @Benchmark
+    public List<Appointment> expertiseFirstPage(Clinic clinic, Cursor cursor) {
+        Appointment slot = clinic.appointments[cursor.random.nextInt(clinic.appointments.length)];
+        return clinic.system.getAvailableAppointmentsByExpertise(
+                SyntheticClinic.EXPERTISE[cursor.random.nextInt(SyntheticClinic.EXPERTISE.length)],
+                slot.getStartTime(), 20);
+    }
+
+    @Benchmark
+    public List<Appointment> expertiseAll(Clinic clinic, Cursor cursor) {
+        return clinic.system.getAvailableAppointmentsByExpertise(
+                SyntheticClinic.EXPERTISE[cursor.random.nextInt(SyntheticClinic.EXPERTISE.length)],
+                null, Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public List<Appointment> byPhysiotherapist(Clinic clinic, Cursor cursor) {
+        return clinic.system.getAvailableAppointmentsByPhysiotherapist(
+                clinic.therapistNames[cursor.random.nextInt(clinic.therapistNames.length)]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void generateReport(Clinic clinic, Blackhole blackhole) throws IOException {
+        Writer sink = Writer.nullWriter();
+        clinic.system.generateReport(sink, ReportWriter.Format.TEXT);
+        blackhole.consume(sink);
+    }
+
+    // Transitions mutate the shared clinic, so each cycle returns its slot to
+    // AVAILABLE before the next invocation picks another one
+
+    @Benchmark
+    public BookingResult bookThenCancel(Clinic clinic, Cursor cursor) {
+        Appointment slot = clinic.appointments[cursor.random.nextInt(clinic.appointments.length)];
+        Appointment.State before = slot.getState();
+        Patient patient = clinic.system.getPatientById(SyntheticClinic.FIRST_PATIENT_ID
+                + cursor.random.nextInt(clinic.system.getPatients().size()));
+        BookingResult result = clinic.system.bookAppointment(patient, slot);
+        if (result == BookingResult.BOOKED) {
+            slot.cancelAppointment();
+            slot.restoreState(before);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public AppointmentStatus bookThenAttend(Clinic clinic, Cursor cursor) {
+        Appointment slot = clinic.appointments[cursor.random.nextInt(clinic.appointments.length)];
+        Appointment.State before = slot.getState();
+        Patient patient = clinic.system.getPatientById(SyntheticClinic.FIRST_PATIENT_ID
+                + cursor.random.nextInt(clinic.system.getPatients().size()));
+        if (clinic.system.bookAppointment(patient, slot) == BookingResult.BOOKED) {
+            slot.attendAppointment();
+            slot.restoreState(before);
+        }
+        return slot.getStatus();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        OptionsBuilder options = new OptionsBuilder();
+        options.include(BookingSystemBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class);
+        if (args.length > 0) {
+            options.param("size", args);
+        }
+        Options built = options.build();
+        new Runner(built).run();
+    }
+}
@@ -0,0 +1,81 @@
+package clinic;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Cost of one "does this therapist have this expertise" check, the inner test
+// of every expertise search. "strings" is the old List<String>.contains layout,
+// kept here as the baseline; "byName" looks the query up in the TermDictionary
+// and then tests a bit; "byCode" is the bit test alone, as searches use it.
+// Queries are fresh strings, as parsed from a request.
+//
+// Measured on one core, JDK 17, -wi 3 -i 5 -r 1s (ns/op):
+//   strings 36 +- 5    byName 53 +- 4    byCode 16 +- 7
+// A lone check by name costs more than the list scan it replaced: the
+// dictionary probe compares the fresh query against its key as the list did,
+// then adds a hash lookup. The gain comes from resolving the code once per
+// search and testing bits for every therapist.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExpertiseMatchBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Roster {
+        Physiotherapist[] therapists;
+        List<List<String>> expertiseLists = new ArrayList<>();
+        String[] queries;
+        int[] codes;
+
+        @Setup(Level.Trial)
+        public void build() {
+            BookingSystem system = SyntheticClinic.build(10_000, 42);
+            therapists = system.getPhysiotherapists().toArray(new Physiotherapist[0]);
+            for (Physiotherapist physio : therapists) {
+                expertiseLists.add(new ArrayList<>(physio.getExpertiseAreas()));
+            }
+            queries = new String[SyntheticClinic.EXPERTISE.length];
+            codes = new int[queries.length];
+            for (int i = 0; i < queries.length; i++) {
+                queries[i] = new String(SyntheticClinic.EXPERTISE[i]);
+                codes[i] = TermDictionary.find(queries[i]);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        final SplittableRandom random = new SplittableRandom(7);
+    }
+
+    @Benchmark
+    public boolean strings(Roster roster, Cursor cursor) {
+        int t = cursor.random.nextInt(roster.therapists.length);
+        return roster.expertiseLists.get(t).contains(roster.queries[cursor.random.nextInt(roster.queries.length)]);
+    }
+
+    @Benchmark
+    public boolean byName(Roster roster, Cursor cursor) {
+        int t = cursor.random.nextInt(roster.therapists.length);
+        return roster.therapists[t].hasExpertise(roster.queries[cursor.random.nextInt(roster.queries.length)]);
+    }
+
+    @Benchmark
+    public boolean byCode(Roster roster, Cursor cursor) {
+        int t = cursor.random.nextInt(roster.therapists.length);
+        return roster.therapists[t].hasExpertise(roster.codes[cursor.random.nextInt(roster.codes.length)]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ExpertiseMatchBenchmark.class.getSimpleName()).build()).run();
+    }
+}
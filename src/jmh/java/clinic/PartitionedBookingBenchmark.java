@@ -0,0 +1,79 @@
+package clinic;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Booking and search throughput of the partitioned router against the number
+// of partitions. Run with -t equal to the core count: with one partition all
+// threads share one set of registries and indexes, with more they spread out.
+//
+// Measured on one core, JDK 17, -t 4 -i 3 -r 2s (ops/ms for 1, 2, 4, 8 partitions):
+//   bookThenCancel    33   40   29   32
+//   searchFirstPage   10.8 10.9  7.4  5.2
+// One core cannot show the contention removed; what it does show is the
+// fan-out cost extra partitions add to searches. Repeat on a multi-core host.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PartitionedBookingBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Clinic {
+        @Param({"1", "2", "4", "8"})
+        public int partitions;
+
+        PartitionedBookingSystem system;
+        // Every slot, whichever partition range its booking ID is in
+        List<Appointment> slots;
+        int patientCount;
+
+        @Setup(Level.Trial)
+        public void build() {
+            int appointmentCount = 100_000;
+            patientCount = appointmentCount / 10;
+            system = SyntheticClinic.buildPartitioned(appointmentCount, 42, partitions);
+            slots = system.getPartitions().stream()
+                    .flatMap(partition -> partition.getAppointments().stream())
+                    .collect(Collectors.toList());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        final SplittableRandom random = new SplittableRandom(7);
+    }
+
+    @Benchmark
+    public BookingResult bookThenCancel(Clinic clinic, Cursor cursor) {
+        Appointment slot = clinic.slots.get(cursor.random.nextInt(clinic.slots.size()));
+        Appointment.State before = slot.getState();
+        Patient patient = clinic.system.getPatientById(SyntheticClinic.FIRST_PATIENT_ID
+                + cursor.random.nextInt(clinic.patientCount));
+        BookingResult result = clinic.system.bookAppointment(patient, slot);
+        if (result == BookingResult.BOOKED) {
+            clinic.system.cancelAppointment(slot);
+            slot.restoreState(before);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<Appointment> searchFirstPage(Clinic clinic, Cursor cursor) {
+        return clinic.system.getAvailableAppointmentsByExpertise(
+                SyntheticClinic.EXPERTISE[cursor.random.nextInt(SyntheticClinic.EXPERTISE.length)],
+                SyntheticClinic.slotStart(cursor.random.nextInt(2_000)), 20);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PartitionedBookingBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,103 @@
+package clinic;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.BiFunction;
+import java.util.function.ToIntFunction;
+
+// Builds a reproducible clinic of a given size for benchmarks: one patient per
+// ten appointments, one therapist per thousand (at least ten), half-hour slots
+// from 08:00 to 18:00 on weekdays, and roughly a third of the slots booked.
+class SyntheticClinic {
+    static final String[] EXPERTISE = {
+            "Physiotherapy", "Rehabilitation", "Osteopathy", "Massage Therapy", "Acupuncture", "Sports Injury"
+    };
+    static final LocalDateTime START = LocalDateTime.of(2025, 1, 6, 8, 0);
+    static final int FIRST_PATIENT_ID = 100_000;
+
+    private SyntheticClinic() {}
+
+    public static BookingSystem build(int appointmentCount, long seed) {
+        BookingSystem system = new BookingSystem();
+        Generator clinic = new Generator(appointmentCount, seed);
+        system.getPhysiotherapists().addAll(clinic.therapists);
+        system.getPatients().addAll(clinic.patients);
+        system.getAppointments().addAll(clinic.appointments(physio -> 1));
+        clinic.book(system::bookAppointment);
+        return system;
+    }
+
+    // The same clinic spread over a router, one therapist group per partition
+    public static PartitionedBookingSystem buildPartitioned(int appointmentCount, long seed, int partitions) {
+        PartitionedBookingSystem system = PartitionedBookingSystem.byPhysiotherapist(partitions);
+        Generator clinic = new Generator(appointmentCount, seed);
+        clinic.therapists.forEach(system::addPhysiotherapist);
+        clinic.patients.forEach(system::addPatient);
+        // Booking IDs count up from the start of each therapist's partition range
+        clinic.appointments(system::firstBookingId).forEach(system::addAppointment);
+        clinic.book(system::bookAppointment);
+        return system;
+    }
+
+    // The people and slots of one clinic, drawn from one seed whichever
+    // system they are loaded into
+    private static class Generator {
+        final Random random;
+        final int appointmentCount;
+        final List<Physiotherapist> therapists;
+        final List<Patient> patients;
+        List<Appointment> appointments;
+
+        Generator(int appointmentCount, long seed) {
+            this.random = new Random(seed);
+            this.appointmentCount = appointmentCount;
+            int therapistCount = Math.max(10, appointmentCount / 1000);
+            therapists = new ArrayList<>(therapistCount);
+            for (int i = 0; i < therapistCount; i++) {
+                Physiotherapist physio = new Physiotherapist(i + 1, "Therapist " + i, "Clinic", "555-0000");
+                physio.addExpertise(EXPERTISE[i % EXPERTISE.length]);
+                physio.addExpertise(EXPERTISE[(i + 1 + random.nextInt(EXPERTISE.length - 1)) % EXPERTISE.length]);
+                therapists.add(physio);
+            }
+            int patientCount = Math.max(10, appointmentCount / 10);
+            patients = new ArrayList<>(patientCount);
+            for (int i = 0; i < patientCount; i++) {
+                patients.add(new Patient(FIRST_PATIENT_ID + i, "Patient " + i, "Street " + i, "555-1111"));
+            }
+        }
+
+        // The i-th slot gets booking ID firstId(its therapist) + i
+        List<Appointment> appointments(ToIntFunction<Physiotherapist> firstId) {
+            appointments = new ArrayList<>(appointmentCount);
+            for (int i = 0; i < appointmentCount; i++) {
+                Physiotherapist physio = therapists.get(i % therapists.size());
+                LocalDateTime start = slotStart(i / therapists.size());
+                appointments.add(new Appointment(firstId.applyAsInt(physio) + i, start, start.plusMinutes(30),
+                        physio.getExpertiseString(), physio, null, AppointmentStatus.AVAILABLE));
+            }
+            return appointments;
+        }
+
+        // Books through the system so the patient conflict rules hold
+        void book(BiFunction<Patient, Appointment, BookingResult> system) {
+            for (int i = 0; i < appointmentCount / 3; i++) {
+                Appointment appt = appointments.get(random.nextInt(appointmentCount));
+                system.apply(patients.get(random.nextInt(patients.size())), appt);
+            }
+        }
+    }
+
+    // The n-th half-hour slot of a therapist's weekday timetable
+    static LocalDateTime slotStart(int n) {
+        int perDay = 20;
+        int day = n / perDay;
+        int week = day / 5;
+        return START.plusWeeks(week).plusDays(day % 5).plusMinutes(30L * (n % perDay));
+    }
+
+    static int randomPatientId(Random random, BookingSystem system) {
+        return FIRST_PATIENT_ID + random.nextInt(system.getPatients().size());
+    }
+}
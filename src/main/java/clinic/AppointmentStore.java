@@ -0,0 +1,23 @@
+package clinic;
+
+import java.time.LocalDateTime;
+
+// Storage backend for a large calendar of appointments. Rows are addressed by
+// position; get(row) hands existing callers an Appointment for that row.
+interface AppointmentStore {
+    // Appends the appointment's current values and returns its row
+    int add(Appointment appointment);
+
+    int size();
+
+    Appointment get(int row);
+
+    int getBookingId(int row);
+
+    LocalDateTime getStartTime(int row);
+
+    AppointmentStatus getStatus(int row);
+
+    // Books the row only if it is still AVAILABLE
+    boolean claim(int row, Patient patient);
+}
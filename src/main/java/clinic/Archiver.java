@@ -0,0 +1,48 @@
+package clinic;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Background thread that keeps the hot appointment list down to the present:
+// once per period, starting straight away, it archives every settled
+// appointment that ended before midnight 'retentionDays' days ago.
+class Archiver implements AutoCloseable {
+    private final BookingSystem system;
+    private final int retentionDays;
+    private final ScheduledExecutorService timer;
+
+    public Archiver(BookingSystem system, int retentionDays, Duration period) {
+        this.system = system;
+        this.retentionDays = retentionDays;
+        this.timer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "archiver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleWithFixedDelay(this::run, 0, period.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void run() {
+        try {
+            system.archiveBefore(LocalDate.now().minusDays(retentionDays).atStartOfDay());
+        } catch (RuntimeException e) {
+            // Report and keep the schedule: a thrown exception would cancel every later run
+            Thread self = Thread.currentThread();
+            self.getUncaughtExceptionHandler().uncaughtException(self, e);
+        }
+    }
+
+    // Stops the schedule, letting a run in progress finish
+    @Override
+    public void close() {
+        timer.shutdown();
+        try {
+            timer.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package clinic;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latency histograms per operation plus striped counters for status
+// transitions and conflict rejections. Recording is allocation-free and
+// never takes a lock, so it can stay on in production.
+class BookingMetrics {
+    enum Operation {
+        BOOK, BOOK_BATCH, CANCEL, RESCHEDULE, ATTEND, SEARCH, REPORT
+    }
+
+    private static final AppointmentStatus[] STATUSES = AppointmentStatus.values();
+
+    private final Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+    private final LongAdder[] transitions = new LongAdder[STATUSES.length * STATUSES.length];
+    private final LongAdder conflictRejections = new LongAdder();
+    private volatile boolean enabled = true;
+
+    public BookingMetrics() {
+        for (Operation op : Operation.values()) {
+            latencies.put(op, new LatencyHistogram());
+        }
+        for (int i = 0; i < transitions.length; i++) {
+            transitions[i] = new LongAdder();
+        }
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Start of a timed operation; pass the result to record()
+    long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    void record(Operation op, long startNanos) {
+        if (startNanos != 0L) {
+            latencies.get(op).record(System.nanoTime() - startNanos);
+        }
+    }
+
+    void transition(AppointmentStatus from, AppointmentStatus to) {
+        if (enabled) {
+            transitions[from.ordinal() * STATUSES.length + to.ordinal()].increment();
+        }
+    }
+
+    void conflictRejected() {
+        if (enabled) {
+            conflictRejections.increment();
+        }
+    }
+
+    public LatencyHistogram latency(Operation op) {
+        return latencies.get(op);
+    }
+
+    public long transitions(AppointmentStatus from, AppointmentStatus to) {
+        return transitions[from.ordinal() * STATUSES.length + to.ordinal()].sum();
+    }
+
+    public long conflictRejections() {
+        return conflictRejections.sum();
+    }
+
+    // Plain-text dump of every metric, one per line
+    public String snapshot() {
+        StringBuilder out = new StringBuilder();
+        out.append("# operation count p50_us p99_us p999_us max_us\n");
+        for (Operation op : Operation.values()) {
+            LatencyHistogram h = latencies.get(op);
+            out.append(String.format("latency.%s %d %.1f %.1f %.1f %.1f\n", op.name().toLowerCase(),
+                    h.count(), h.percentile(50) / 1e3, h.percentile(99) / 1e3,
+                    h.percentile(99.9) / 1e3, h.max() / 1e3));
+        }
+        for (AppointmentStatus from : STATUSES) {
+            for (AppointmentStatus to : STATUSES) {
+                long n = transitions(from, to);
+                if (n != 0) {
+                    out.append("transition.").append(from).append('.').append(to).append(' ').append(n).append('\n');
+                }
+            }
+        }
+        out.append("conflict_rejections ").append(conflictRejections()).append('\n');
+        return out.toString();
+    }
+}
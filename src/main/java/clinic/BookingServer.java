@@ -0,0 +1,377 @@
+package clinic;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Embedded HTTP front end for the web portal. Responses are JSON; request
+// parameters come from the query string or a form-encoded body.
+//
+//   GET  /appointments?expertise=&from=&limit=   open slots, earliest first
+//   GET  /appointments?therapist=&from=&limit=   the same, by therapist name prefix
+//   GET  /appointments/{id}
+//   POST /appointments/{id}/book?patient={id}    409 with the result when refused
+//   POST /appointments/{id}/reschedule?start=&end=
+//   POST /appointments/{id}/cancel
+//   POST /appointments/{id}/attend
+//   GET  /patients?prefix=&limit=                name type-ahead, alphabetical
+//   GET  /patients/{id}
+//   POST /patients?id=&name=&address=&phone=
+//   GET  /report                                  JSON lines
+//   GET  /metrics                                 plain text
+//
+// Every exchange runs on its own virtual thread when the JDK has them; on
+// older JDKs it falls back to a fixed pool of platform threads sized for the host.
+class BookingServer {
+    private static final int DEFAULT_LIMIT = 50;
+    // Handlers mostly wait on SYNC journal commits rather than compute
+    private static final int THREADS_PER_CORE = 8;
+    private static final int BACKLOG = 1024;
+
+    private final BookingSystem system;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public BookingServer(BookingSystem system) {
+        this.system = system;
+    }
+
+    // Binds to the given port (0 for any free port) and starts serving
+    public void start(int port) throws IOException {
+        // Small JSON replies otherwise sit behind Nagle's algorithm on keep-alive
+        // connections; read once by the JDK server, so set before the first create
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        executor = newThreadPerTaskExecutor(THREADS_PER_CORE * Runtime.getRuntime().availableProcessors());
+        server.setExecutor(executor);
+        server.createContext("/appointments", guarded(this::appointments));
+        server.createContext("/patients", guarded(this::patients));
+        server.createContext("/report", guarded(this::report));
+        server.createContext("/metrics", guarded(this::metrics));
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public void stop() throws InterruptedException {
+        server.stop(0);
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() where available (JDK 21+),
+    // else 'threads' platform threads. Once they are all busy and BACKLOG tasks
+    // are queued, the submitting thread runs the task itself, which holds the
+    // server's dispatcher back from accepting more.
+    static ExecutorService newThreadPerTaskExecutor(int threads) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(BACKLOG), new ThreadPoolExecutor.CallerRunsPolicy());
+            pool.allowCoreThreadTimeOut(true);
+            return pool;
+        }
+    }
+
+    // Turns malformed parameters into a 400 and always closes the exchange
+    private static HttpHandler guarded(HttpHandler handler) {
+        return exchange -> {
+            try {
+                handler.handle(exchange);
+            } catch (NumberFormatException | DateTimeParseException e) {
+                send(exchange, 400, error("bad parameter: " + e.getMessage()));
+            } finally {
+                exchange.close();
+            }
+        };
+    }
+
+    private void appointments(HttpExchange exchange) throws IOException {
+        String[] path = path(exchange, "/appointments");
+        Map<String, String> params = params(exchange);
+        if (path.length == 0) {
+            if (!method(exchange, "GET")) {
+                return;
+            }
+            String expertise = params.get("expertise");
+            String therapist = params.get("therapist");
+            if (expertise == null && therapist == null) {
+                send(exchange, 400, error("expertise or therapist is required"));
+                return;
+            }
+            LocalDateTime from = params.containsKey("from") ? LocalDateTime.parse(params.get("from")) : null;
+            int limit = params.containsKey("limit") ? Integer.parseInt(params.get("limit")) : DEFAULT_LIMIT;
+            List<Appointment> found = expertise != null
+                    ? system.getAvailableAppointmentsByExpertise(expertise, from, limit)
+                    : system.getAvailableAppointmentsByPhysiotherapistPrefix(therapist, from, limit);
+            StringBuilder json = new StringBuilder("[");
+            for (Appointment appt : found) {
+                if (json.length() > 1) {
+                    json.append(',');
+                }
+                appointment(json, appt);
+            }
+            send(exchange, 200, json.append(']').toString());
+            return;
+        }
+
+        Appointment appt = system.getAppointmentById(Integer.parseInt(path[0]));
+        if (appt == null) {
+            send(exchange, 404, error("appointment not found"));
+            return;
+        }
+        String action = path.length > 1 ? path[1] : "";
+        switch (action) {
+            case "":
+                if (method(exchange, "GET")) {
+                    send(exchange, 200, appointment(new StringBuilder(), appt).toString());
+                }
+                break;
+            case "book":
+                if (method(exchange, "POST")) {
+                    Patient patient = params.containsKey("patient")
+                            ? system.getPatientById(Integer.parseInt(params.get("patient"))) : null;
+                    if (patient == null) {
+                        send(exchange, 404, error("patient not found"));
+                        return;
+                    }
+                    BookingResult result = system.bookAppointment(patient, appt);
+                    send(exchange, result == BookingResult.BOOKED ? 200 : 409,
+                            "{\"result\":\"" + result + "\"}");
+                }
+                break;
+            case "reschedule":
+                if (method(exchange, "POST")) {
+                    if (!params.containsKey("start") || !params.containsKey("end")) {
+                        send(exchange, 400, error("start and end are required"));
+                        return;
+                    }
+                    LocalDateTime start = LocalDateTime.parse(params.get("start"));
+                    LocalDateTime end = LocalDateTime.parse(params.get("end"));
+                    if (!end.isAfter(start)) {
+                        send(exchange, 400, error("end must be after start"));
+                        return;
+                    }
+                    BookingResult result = system.reschedule(appt.getBookingId(), start, end);
+                    if (result == BookingResult.BOOKED) {
+                        send(exchange, 200, appointment(new StringBuilder(), appt).toString());
+                    } else {
+                        send(exchange, 409, "{\"result\":\"" + result + "\"}");
+                    }
+                }
+                break;
+            case "cancel":
+                if (method(exchange, "POST")) {
+                    system.cancelAppointment(appt);
+                    send(exchange, 200, appointment(new StringBuilder(), appt).toString());
+                }
+                break;
+            case "attend":
+                if (method(exchange, "POST")) {
+                    if (system.attendAppointment(appt)) {
+                        send(exchange, 200, appointment(new StringBuilder(), appt).toString());
+                    } else {
+                        send(exchange, 409, error("appointment is not booked"));
+                    }
+                }
+                break;
+            default:
+                send(exchange, 404, error("unknown action"));
+        }
+    }
+
+    private void patients(HttpExchange exchange) throws IOException {
+        String[] path = path(exchange, "/patients");
+        Map<String, String> params = params(exchange);
+        if (path.length == 0 && "GET".equals(exchange.getRequestMethod())) {
+            String prefix = params.getOrDefault("prefix", "");
+            int limit = params.containsKey("limit") ? Integer.parseInt(params.get("limit")) : DEFAULT_LIMIT;
+            StringBuilder json = new StringBuilder("[");
+            for (Patient patient : system.findPatientsByNamePrefix(prefix, limit)) {
+                if (json.length() > 1) {
+                    json.append(',');
+                }
+                patient(json, patient);
+            }
+            send(exchange, 200, json.append(']').toString());
+            return;
+        }
+        if (path.length == 0) {
+            if (!method(exchange, "POST")) {
+                return;
+            }
+            String id = params.get("id");
+            String name = params.get("name");
+            if (id == null || name == null) {
+                send(exchange, 400, error("id and name are required"));
+                return;
+            }
+            Patient patient = new Patient(Integer.parseInt(id), name,
+                    params.getOrDefault("address", ""), params.getOrDefault("phone", ""));
+            // Check and add under the list's lock so two requests can't both claim the ID,
+            // waiting for a SYNC journal once it is released
+            boolean added;
+            Journal.deferSyncWaits();
+            try {
+                synchronized (system.getPatients()) {
+                    added = system.getPatientById(patient.getId()) == null && system.getPatients().add(patient);
+                }
+            } finally {
+                Journal.awaitDeferred();
+            }
+            if (!added) {
+                send(exchange, 409, error("patient ID already exists"));
+                return;
+            }
+            send(exchange, 201, patient(new StringBuilder(), patient).toString());
+            return;
+        }
+        if (!method(exchange, "GET")) {
+            return;
+        }
+        Patient patient = system.getPatientById(Integer.parseInt(path[0]));
+        if (patient == null) {
+            send(exchange, 404, error("patient not found"));
+        } else {
+            send(exchange, 200, patient(new StringBuilder(), patient).toString());
+        }
+    }
+
+    private void report(HttpExchange exchange) throws IOException {
+        if (!method(exchange, "GET")) {
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+        exchange.sendResponseHeaders(200, 0);
+        Writer out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8));
+        system.generateReport(out, ReportWriter.Format.JSON_LINES);
+        out.flush();
+    }
+
+    private void metrics(HttpExchange exchange) throws IOException {
+        if (!method(exchange, "GET")) {
+            return;
+        }
+        String text = system.getMetrics().snapshot() + system.getSearchCache().snapshot();
+        byte[] body = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    // Path segments after the context prefix, e.g. "/appointments/7/book" -> ["7", "book"]
+    private static String[] path(HttpExchange exchange, String prefix) {
+        String rest = exchange.getRequestURI().getPath().substring(prefix.length());
+        while (rest.startsWith("/")) {
+            rest = rest.substring(1);
+        }
+        return rest.isEmpty() ? new String[0] : rest.split("/");
+    }
+
+    private static Map<String, String> params(HttpExchange exchange) throws IOException {
+        Map<String, String> params = new HashMap<>();
+        parseForm(exchange.getRequestURI().getRawQuery(), params);
+        if ("POST".equals(exchange.getRequestMethod())) {
+            try (InputStream body = exchange.getRequestBody()) {
+                parseForm(new String(body.readAllBytes(), StandardCharsets.UTF_8), params);
+            }
+        }
+        return params;
+    }
+
+    private static void parseForm(String form, Map<String, String> params) {
+        if (form == null || form.isEmpty()) {
+            return;
+        }
+        for (String pair : form.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static boolean method(HttpExchange exchange, String expected) throws IOException {
+        if (expected.equals(exchange.getRequestMethod())) {
+            return true;
+        }
+        exchange.getResponseHeaders().set("Allow", expected);
+        send(exchange, 405, error("method not allowed"));
+        return false;
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private static String error(String message) {
+        return string(new StringBuilder("{\"error\":"), message).append('}').toString();
+    }
+
+    private static StringBuilder appointment(StringBuilder json, Appointment appt) {
+        Appointment.State state = appt.getState();
+        json.append("{\"bookingId\":").append(appt.getBookingId()).append(",\"start\":\"");
+        ReportWriter.ISO_TIME.formatTo(appt.getStartTime(), json);
+        json.append("\",\"end\":\"");
+        ReportWriter.ISO_TIME.formatTo(appt.getEndTime(), json);
+        json.append("\",\"treatment\":");
+        string(json, appt.getTreatmentName());
+        json.append(",\"physiotherapist\":");
+        string(json, appt.getPhysiotherapist().getName());
+        json.append(",\"patientId\":");
+        json.append(state.patient() != null ? String.valueOf(state.patient().getId()) : "null");
+        return json.append(",\"status\":\"").append(state.status()).append("\"}");
+    }
+
+    private static StringBuilder patient(StringBuilder json, Patient patient) {
+        json.append("{\"id\":").append(patient.getId()).append(",\"name\":");
+        string(json, patient.getName());
+        json.append(",\"address\":");
+        string(json, patient.getAddress());
+        json.append(",\"phone\":");
+        string(json, patient.getTelephone());
+        return json.append('}');
+    }
+
+    private static StringBuilder string(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        return json.append('"');
+    }
+}
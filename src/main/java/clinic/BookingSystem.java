@@ -0,0 +1,1280 @@
+package clinic;
+
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+public class BookingSystem {
+    private List<Physiotherapist> physiotherapists;
+    private List<Patient> patients;
+    private ObservableList<Appointment> appointments;
+    // First booking ID not yet handed out; threads take blocks of ID_BLOCK from it
+    private final AtomicInteger nextBookingId = new AtomicInteger(1);
+    // Generated booking IDs stay below this, e.g. the end of a partition's range
+    private volatile int bookingIdLimit = Integer.MAX_VALUE;
+    // [next, limit) of the block of booking IDs reserved by the current thread
+    private final ThreadLocal<int[]> idBlock = ThreadLocal.withInitial(() -> new int[2]);
+
+    private static final int LOCK_STRIPES = 64;
+    private static final int ID_BLOCK = 64;
+    // How far ahead open-ended searches look for recurring availability
+    private static final int SEARCH_HORIZON_DAYS = 28;
+    private static final int SEARCH_CACHE_SIZE = 1024;
+    // Slots offered when booking by expertise at the console
+    private static final int SUGGESTIONS = 10;
+
+    // Per-patient interval index backing hasTimeConflict; each schedule is
+    // guarded by its patient's lock stripe
+    private final Map<Patient, PatientSchedule> schedules = new ConcurrentHashMap<>();
+    private final Object[] patientLocks = new Object[LOCK_STRIPES];
+    // Start-time ordered open slots per physiotherapist, backing the availability searches
+    private final OpenSlotIndex openSlots = new OpenSlotIndex();
+    // Open slots of all therapists bucketed by day, backing the time-range queries
+    private final CalendarIndex calendar = new CalendarIndex(LocalDate.now());
+    // Patients with attended appointments in the cold store, who must not be removed
+    private final Set<Patient> archivedPatients = ConcurrentHashMap.newKeySet();
+    // Per-physiotherapist status counts and appointment groups for the report
+    private final ReportAggregates aggregates = new ReportAggregates();
+    // Primary-key registries backing the id lookups
+    private final IntObjectMap<Patient> patientsById = new IntObjectMap<>();
+    private final IntObjectMap<Appointment> appointmentsById = new IntObjectMap<>();
+    private final ReadWriteLock registryLock = new ReentrantReadWriteLock();
+    // Case-insensitive name lookups and type-ahead
+    private final NameIndex<Patient> patientNames = new NameIndex<>();
+    private final NameIndex<Physiotherapist> physiotherapistNames = new NameIndex<>();
+    // Date range already materialized from each therapist's availability rules
+    private final Map<Physiotherapist, Coverage> materialized = new ConcurrentHashMap<>();
+    // Recent availability search results, invalidated by per-therapist version stamps
+    private final SearchCache searchCache = new SearchCache(SEARCH_CACHE_SIZE);
+    // Operation latencies, transition and rejection counts
+    private final BookingMetrics metrics = new BookingMetrics();
+    // Records every mutation once attached by Journal.open
+    private volatile Journal journal;
+    // Carries transitions and patient changes to asynchronous side-effect consumers
+    private volatile EventBus events;
+
+    public BookingSystem() {
+        // Callbacks journal under the list's monitor; SYNC waits happen once it is released
+        physiotherapists = new ObservableList<>(this::physiotherapistAdded, this::physiotherapistRemoved,
+                Journal::deferSyncWaits, Journal::awaitDeferred);
+        patients = new ObservableList<>(this::patientAdded, this::patientRemoved,
+                Journal::deferSyncWaits, Journal::awaitDeferred);
+        appointments = new ObservableList<>(this::appointmentAdded, this::appointmentRemoved,
+                Journal::deferSyncWaits, Journal::awaitDeferred);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            patientLocks[i] = new Object();
+        }
+    }
+
+    public void initializeSampleData() {
+        // Sample physiotherapists
+        Physiotherapist pt1 = new Physiotherapist(1, "Dr. Smith", "123 Main St", "555-1234");
+        pt1.addExpertise("Physiotherapy");
+        pt1.addExpertise("Rehabilitation");
+
+        Physiotherapist pt2 = new Physiotherapist(2, "Dr. Johnson", "456 Oak Ave", "555-5678");
+        pt2.addExpertise("Osteopathy");
+        pt2.addExpertise("Massage Therapy");
+
+        physiotherapists.add(pt1);
+        physiotherapists.add(pt2);
+
+        // Sample patients
+        patients.add(new Patient(101, "John Doe", "789 Elm St", "555-9012"));
+        patients.add(new Patient(102, "Jane Smith", "321 Pine Rd", "555-3456"));
+
+        // Sample weekly availability, with a 4-week timetable generated up front
+        DayOfWeek today = LocalDate.now().getDayOfWeek();
+        pt1.addAvailabilityRule(new AvailabilityRule(today, LocalTime.of(10, 0), LocalTime.of(11, 0),
+                Duration.ofHours(1), "Neural Mobilisation"));
+        pt1.addAvailabilityRule(new AvailabilityRule(today, LocalTime.of(11, 0), LocalTime.of(12, 0),
+                Duration.ofHours(1), "Acupuncture"));
+        pt2.addAvailabilityRule(new AvailabilityRule(today, LocalTime.of(14, 0), LocalTime.of(15, 0),
+                Duration.ofHours(1), "Mobilisation of Spine"));
+        prefillSlots(LocalDate.now(), LocalDate.now().plusWeeks(4));
+    }
+
+    // Patient management methods
+    public void addPatientFromInput(Scanner scanner) {
+        System.out.println("\n--- Add New Patient ---");
+        System.out.print("Enter patient ID: ");
+        int id = scanner.nextInt();
+        scanner.nextLine();
+
+        if (getPatientById(id) != null) {
+            System.out.println("Error: Patient ID already exists.");
+            return;
+        }
+
+        System.out.print("Enter full name: ");
+        String name = scanner.nextLine();
+
+        System.out.print("Enter address: ");
+        String address = scanner.nextLine();
+
+        System.out.print("Enter telephone number: ");
+        String phone = scanner.nextLine();
+
+        Patient patient = new Patient(id, name, address, phone);
+        patients.add(patient);
+        System.out.println("Patient added successfully!");
+    }
+
+    public void removePatientFromInput(Scanner scanner) {
+        System.out.println("\n--- Remove Patient ---");
+        System.out.print("Enter patient ID to remove: ");
+        int id = scanner.nextInt();
+        scanner.nextLine();
+
+        Patient patient = getPatientById(id);
+        if (patient == null) {
+            System.out.println("Error: Patient not found.");
+            return;
+        }
+
+        if (!removePatient(patient)) {
+            System.out.println("Error: Patient has active appointments. Cancel them first.");
+            return;
+        }
+        System.out.println("Patient removed successfully!");
+    }
+
+    // False if the patient still has a booked or attended appointment. The
+    // check and the removal hold the patient's lock stripe, like a booking,
+    // so no booking can slip in between; SYNC journals are waited for after.
+    public boolean removePatient(Patient patient) {
+        Journal.deferSyncWaits();
+        try {
+            synchronized (lockFor(patient)) {
+                if (hasBookedAppointments(patient)) {
+                    return false;
+                }
+                patients.remove(patient);
+                return true;
+            }
+        } finally {
+            Journal.awaitDeferred();
+        }
+    }
+
+    // Appointment booking methods
+    public void bookAppointmentFromInput(Scanner scanner) {
+        System.out.println("\n--- Book Appointment ---");
+        System.out.print("Enter patient ID: ");
+        int patientId = scanner.nextInt();
+        scanner.nextLine();
+
+        Patient patient = getPatientById(patientId);
+        if (patient == null) {
+            System.out.println("Error: Patient not found.");
+            return;
+        }
+
+        System.out.println("Search by: 1) Expertise 2) Physiotherapist Name");
+        System.out.print("Select option: ");
+        int searchOption = scanner.nextInt();
+        scanner.nextLine();
+
+        List<Appointment> availableAppointments = new ArrayList<>();
+
+        if (searchOption == 1) {
+            System.out.print("Enter expertise: ");
+            String expertise = scanner.nextLine();
+            availableAppointments = findEarliestSlots(patient, expertise, LocalDateTime.now(), SUGGESTIONS);
+        } else if (searchOption == 2) {
+            System.out.print("Enter physiotherapist name: ");
+            String name = scanner.nextLine();
+            availableAppointments = getAvailableAppointmentsByPhysiotherapist(name);
+        } else {
+            System.out.println("Invalid option.");
+            return;
+        }
+
+        if (availableAppointments.isEmpty()) {
+            System.out.println("No available appointments found.");
+            return;
+        }
+
+        System.out.println("\nAvailable Appointments:");
+        for (int i = 0; i < availableAppointments.size(); i++) {
+            Appointment appt = availableAppointments.get(i);
+            System.out.printf("%d. %s - %s (%s) with %s\n",
+                    i+1,
+                    appt.getStartTime().format(ReportWriter.DISPLAY_TIME),
+                    appt.getTreatmentName(),
+                    appt.getPhysiotherapist().getExpertiseString(),
+                    appt.getPhysiotherapist().getName());
+        }
+
+        System.out.print("Select appointment to book: ");
+        int choice = scanner.nextInt();
+        scanner.nextLine();
+
+        if (choice < 1 || choice > availableAppointments.size()) {
+            System.out.println("Invalid selection.");
+            return;
+        }
+
+        Appointment selected = availableAppointments.get(choice-1);
+
+        BookingResult result = bookAppointment(patient, selected);
+        if (result == BookingResult.TIME_CONFLICT) {
+            System.out.println("Error: Patient already has an appointment at this time.");
+            return;
+        }
+        if (result == BookingResult.SLOT_UNAVAILABLE) {
+            System.out.println("Error: This appointment has just been taken.");
+            return;
+        }
+        System.out.println("Appointment booked successfully! Booking ID: " + selected.getBookingId());
+    }
+
+    // Checks the patient's schedule and claims the slot as one step. Holding the
+    // patient's lock stripe stops two bookings for the same patient overlapping,
+    // and the claim itself is a CAS so a slot is never given out twice. A SYNC
+    // journal is waited for after the stripe is released.
+    public BookingResult bookAppointment(Patient patient, Appointment appointment) {
+        long start = metrics.start();
+        Journal.deferSyncWaits();
+        try {
+            synchronized (lockFor(patient)) {
+                if (hasTimeConflict(patient, appointment.getStartTime(), appointment.getEndTime())) {
+                    metrics.conflictRejected();
+                    return BookingResult.TIME_CONFLICT;
+                }
+                return appointment.claim(patient) ? BookingResult.BOOKED : BookingResult.SLOT_UNAVAILABLE;
+            }
+        } finally {
+            finish(BookingMetrics.Operation.BOOK, start);
+        }
+    }
+
+    // Moves a booked appointment to a new time in place, keeping its ID and
+    // patient. The clash check ignores the appointment itself and, like a
+    // booking, runs under the patient's lock stripe together with the move.
+    public BookingResult reschedule(int bookingId, LocalDateTime newStart, LocalDateTime newEnd) {
+        if (!newEnd.isAfter(newStart)) {
+            throw new IllegalArgumentException("End time must be after start time");
+        }
+        long start = metrics.start();
+        Journal.deferSyncWaits();
+        try {
+            Appointment appointment = getAppointmentById(bookingId);
+            if (appointment == null) {
+                return BookingResult.NOT_FOUND;
+            }
+            Patient patient = appointment.getPatient();
+            if (patient == null) {
+                return BookingResult.SLOT_UNAVAILABLE;
+            }
+            synchronized (lockFor(patient)) {
+                Appointment.State state = appointment.getState();
+                if (state.status() != AppointmentStatus.BOOKED || state.patient() != patient) {
+                    return BookingResult.SLOT_UNAVAILABLE;
+                }
+                PatientSchedule schedule = schedules.get(patient);
+                if (schedule != null && schedule.overlaps(newStart, newEnd, appointment)) {
+                    metrics.conflictRejected();
+                    return BookingResult.TIME_CONFLICT;
+                }
+                relocate(appointment, patient, newStart, newEnd);
+                return BookingResult.BOOKED;
+            }
+        } finally {
+            finish(BookingMetrics.Operation.RESCHEDULE, start);
+        }
+    }
+
+    // Closes the journal deferral an operation opened, waiting for its SYNC
+    // records now its locks are released, and records the operation's latency
+    private void finish(BookingMetrics.Operation operation, long start) {
+        try {
+            Journal.awaitDeferred();
+        } finally {
+            metrics.record(operation, start);
+        }
+    }
+
+    // Adds a new open slot under a freshly allocated booking ID
+    public Appointment createAppointment(LocalDateTime start, LocalDateTime end, String treatmentName,
+                                         Physiotherapist physio) {
+        while (true) {
+            Appointment appointment = new Appointment(newBookingId(), start, end, treatmentName, physio,
+                    null, AppointmentStatus.AVAILABLE);
+            try {
+                appointments.add(appointment);
+                return appointment;
+            } catch (IllegalArgumentException duplicate) {
+                // An appointment was added with an explicit ID from this thread's block; take the next
+            }
+        }
+    }
+
+    // Books the patient into every listed slot or none of them. The slots are
+    // checked against each other and against the patient's schedule in one
+    // pass under the patient's lock, then claimed; if any claim loses a race,
+    // the slots already claimed are released again, each only if nobody has
+    // cancelled or attended it since. Results follow the order of bookingIds.
+    public List<BookingResult> bookBatch(Patient patient, List<Integer> bookingIds) {
+        long start = metrics.start();
+        int n = bookingIds.size();
+        BookingResult[] results = new BookingResult[n];
+        Appointment[] slots = new Appointment[n];
+        boolean failed = false;
+        for (int i = 0; i < n; i++) {
+            slots[i] = getAppointmentById(bookingIds.get(i));
+            if (slots[i] == null) {
+                results[i] = BookingResult.NOT_FOUND;
+                failed = true;
+            }
+        }
+
+        Journal.deferSyncWaits();
+        try {
+            synchronized (lockFor(patient)) {
+                failed |= checkBatch(patient, slots, results);
+                if (!failed) {
+                    for (int i = 0; i < n; i++) {
+                        if (slots[i].claim(patient)) {
+                            results[i] = BookingResult.BOOKED;
+                        } else {
+                            results[i] = BookingResult.SLOT_UNAVAILABLE;
+                            failed = true;
+                            for (int j = 0; j < i; j++) {
+                                slots[j].release(patient);
+                            }
+                            break;
+                        }
+                    }
+                }
+            }
+        } finally {
+            Journal.awaitDeferred();
+        }
+
+        if (failed) {
+            for (int i = 0; i < n; i++) {
+                if (results[i] == null || results[i] == BookingResult.BOOKED) {
+                    results[i] = BookingResult.ABORTED;
+                }
+            }
+        }
+        metrics.record(BookingMetrics.Operation.BOOK_BATCH, start);
+        return Arrays.asList(results);
+    }
+
+    // Fills in a result for every found slot that cannot be booked and returns
+    // true if there was any. Sorting by start time lets one sweep find overlaps
+    // inside the batch; each slot is also checked against the patient's schedule.
+    private boolean checkBatch(Patient patient, Appointment[] slots, BookingResult[] results) {
+        boolean failed = false;
+        List<Integer> order = new ArrayList<>(slots.length);
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] != null) {
+                order.add(i);
+            }
+        }
+        order.sort((a, b) -> OpenSlotIndex.BY_START.compare(slots[a], slots[b]));
+
+        int latest = -1;
+        for (int i : order) {
+            Appointment slot = slots[i];
+            if (slot.getStatus() != AppointmentStatus.AVAILABLE) {
+                results[i] = BookingResult.SLOT_UNAVAILABLE;
+                failed = true;
+            } else if (hasTimeConflict(patient, slot.getStartTime(), slot.getEndTime())) {
+                results[i] = BookingResult.TIME_CONFLICT;
+                failed = true;
+            }
+            // Overlaps the slot with the latest end among those before it
+            if (latest >= 0 && slots[latest].getEndTime().isAfter(slot.getStartTime())) {
+                results[i] = BookingResult.TIME_CONFLICT;
+                failed = true;
+            }
+            if (latest < 0 || slot.getEndTime().isAfter(slots[latest].getEndTime())) {
+                latest = i;
+            }
+        }
+        if (failed) {
+            metrics.conflictRejected();
+        }
+        return failed;
+    }
+
+    public void cancelAppointment(Appointment appointment) {
+        long start = metrics.start();
+        appointment.cancelAppointment();
+        metrics.record(BookingMetrics.Operation.CANCEL, start);
+    }
+
+    // Returns false unless the appointment was BOOKED
+    public boolean attendAppointment(Appointment appointment) {
+        long start = metrics.start();
+        boolean booked = appointment.getStatus() == AppointmentStatus.BOOKED;
+        if (booked) {
+            appointment.attendAppointment();
+        }
+        metrics.record(BookingMetrics.Operation.ATTEND, start);
+        return booked;
+    }
+
+    // Report generation
+    public void generateReport() {
+        Writer console = new OutputStreamWriter(System.out);
+        try {
+            generateReport(console, ReportWriter.Format.TEXT);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Streams the report to the given sink; the writer is flushed but not closed.
+    // The whole report reads one snapshot, so bookings made while it is being
+    // written neither show up half-way nor skew the ranking.
+    public void generateReport(Writer sink, ReportWriter.Format format) throws IOException {
+        long start = metrics.start();
+        Writer out = sink instanceof BufferedWriter ? sink : new BufferedWriter(sink, 1 << 16);
+        ReportWriter report = ReportWriter.create(format, out);
+        Map<Physiotherapist, Integer> attended;
+        try (Snapshot snapshot = Snapshot.open()) {
+            report.begin();
+            attended = writeAppointmentSections(report, snapshot);
+        }
+
+        // Print physiotherapist ranking by attended appointments
+        report.rankingHeader();
+        for (Physiotherapist physio : rank(physiotherapists, attended)) {
+            report.ranking(physio, attended.getOrDefault(physio, 0));
+        }
+        out.flush();
+        metrics.record(BookingMetrics.Operation.REPORT, start);
+    }
+
+    // Print appointments for each physiotherapist as the snapshot sees them,
+    // returning the attended count of each therapist printed
+    Map<Physiotherapist, Integer> writeAppointmentSections(ReportWriter report, Snapshot snapshot) throws IOException {
+        Map<Physiotherapist, Integer> attended = new HashMap<>();
+        for (ReportAggregates.Tally tally : aggregates.tallies()) {
+            Physiotherapist physio = tally.getPhysiotherapist();
+            int[] seen = new int[2];
+            try {
+                tally.forEach(snapshot, appt -> {
+                    try {
+                        // Headed on the first appointment, since the snapshot may see none
+                        if (seen[0]++ == 0) {
+                            report.therapist(physio);
+                        }
+                        if (appt.getStatus() == AppointmentStatus.ATTENDED) {
+                            seen[1]++;
+                        }
+                        report.appointment(physio, appt);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            attended.put(physio, seen[1]);
+        }
+        return attended;
+    }
+
+    // Helper methods
+    public Patient getPatientById(int id) {
+        registryLock.readLock().lock();
+        try {
+            return patientsById.get(id);
+        } finally {
+            registryLock.readLock().unlock();
+        }
+    }
+
+    public Appointment getAppointmentById(int bookingId) {
+        registryLock.readLock().lock();
+        try {
+            return appointmentsById.get(bookingId);
+        } finally {
+            registryLock.readLock().unlock();
+        }
+    }
+
+    // The patient's schedule holds exactly their booked and attended
+    // appointments that are still live; archived attended ones are remembered
+    // apart
+    boolean hasBookedAppointments(Patient patient) {
+        if (archivedPatients.contains(patient)) {
+            return true;
+        }
+        synchronized (lockFor(patient)) {
+            PatientSchedule schedule = schedules.get(patient);
+            return schedule != null && !schedule.isEmpty();
+        }
+    }
+
+    // The first 'limit' open slots starting at or after 'from' (null for all), in start-time order.
+    // Slots from availability rules are generated for the searched range on demand.
+    // Results are shared with the search cache and must not be modified
+    public List<Appointment> getAvailableAppointmentsByExpertise(String expertise, LocalDateTime from, int limit) {
+        int code = TermDictionary.find(expertise);
+        return findAvailable(new SearchCache.Key(SearchCache.Kind.EXPERTISE, expertise, from, limit),
+                () -> p -> p.hasExpertise(code), code);
+    }
+
+    // The first k open slots for the expertise starting at or after 'from' (null
+    // for no lower bound) that the patient could book without a clash, earliest
+    // first. Clashing slots are skipped while walking the expertise's open slots,
+    // so the cost grows with k and the slots skipped, not with the appointment count.
+    // Not cached, since the answer depends on the patient's bookings.
+    public List<Appointment> findEarliestSlots(Patient patient, String expertise, LocalDateTime from, int k) {
+        return findEarliestSlots(expertise, from, k,
+                slot -> !hasTimeConflict(patient, slot.getStartTime(), slot.getEndTime()));
+    }
+
+    // As above, with the clash check supplied, e.g. across partitions. Rule-based
+    // slots are materialized a week at a time until there are k results or the
+    // search reaches the horizon.
+    List<Appointment> findEarliestSlots(String expertise, LocalDateTime from, int k, Predicate<Appointment> fits) {
+        long started = metrics.start();
+        int code = TermDictionary.find(expertise);
+        Predicate<Physiotherapist> filter = p -> p.hasExpertise(code);
+        List<Physiotherapist> ruled = new ArrayList<>();
+        for (Physiotherapist physio : physiotherapists) {
+            if (filter.test(physio) && !physio.getAvailabilityRules().isEmpty()) {
+                ruled.add(physio);
+            }
+        }
+
+        LocalDate today = LocalDate.now();
+        LocalDate start = from != null && from.toLocalDate().isAfter(today) ? from.toLocalDate() : today;
+        LocalDate horizon = start.plusDays(SEARCH_HORIZON_DAYS);
+        LocalDate until = start;
+        List<Appointment> found = null;
+        while (true) {
+            until = until.plusWeeks(1).isAfter(horizon) ? horizon : until.plusWeeks(1);
+            int added = 0;
+            for (Physiotherapist physio : ruled) {
+                added += materializeSlots(physio, start, until);
+            }
+            // A week that opened no slots cannot change the answer
+            if (found == null || added > 0) {
+                found = openSlots.findByExpertise(code, from, k, fits);
+            }
+            if (found.size() >= k || ruled.isEmpty() || !until.isBefore(horizon)) {
+                metrics.record(BookingMetrics.Operation.SEARCH, started);
+                return found;
+            }
+        }
+    }
+
+    public List<Appointment> getAvailableAppointmentsByPhysiotherapist(String name) {
+        return findAvailable(new SearchCache.Key(SearchCache.Kind.PHYSIOTHERAPIST, NameIndex.fold(name),
+                null, Integer.MAX_VALUE), () -> new HashSet<>(physiotherapistNames.exact(name))::contains);
+    }
+
+    // Open slots of every therapist whose name starts with 'prefix', ignoring case
+    public List<Appointment> getAvailableAppointmentsByPhysiotherapistPrefix(String prefix, LocalDateTime from,
+                                                                            int limit) {
+        return findAvailable(new SearchCache.Key(SearchCache.Kind.PHYSIOTHERAPIST_PREFIX, NameIndex.fold(prefix),
+                from, limit), () -> new HashSet<>(physiotherapistNames.prefix(prefix, Integer.MAX_VALUE))::contains);
+    }
+
+    // Name lookups ignore case; prefix results are in alphabetical order
+    public List<Patient> findPatientsByName(String name) {
+        return patientNames.exact(name);
+    }
+
+    public List<Patient> findPatientsByNamePrefix(String prefix, int limit) {
+        return patientNames.prefix(prefix, limit);
+    }
+
+    public List<Physiotherapist> findPhysiotherapistsByName(String name) {
+        return physiotherapistNames.exact(name);
+    }
+
+    public List<Physiotherapist> findPhysiotherapistsByNamePrefix(String prefix, int limit) {
+        return physiotherapistNames.prefix(prefix, limit);
+    }
+
+    // Open slots of every therapist starting in [from, to), in start-time order and
+    // cut off after 'limit'. Rule-based slots are generated for the part of the
+    // range within the search horizon. Not cached.
+    public List<Appointment> getAvailableAppointmentsBetween(LocalDateTime from, LocalDateTime to, int limit) {
+        long started = metrics.start();
+        LocalDate today = LocalDate.now();
+        LocalDate start = from.toLocalDate().isAfter(today) ? from.toLocalDate() : today;
+        LocalDate horizon = start.plusDays(SEARCH_HORIZON_DAYS);
+        LocalDate until = to.toLocalDate().plusDays(1).isBefore(horizon) ? to.toLocalDate().plusDays(1) : horizon;
+        for (Physiotherapist physio : physiotherapists) {
+            materializeSlots(physio, start, until);
+        }
+        List<Appointment> found = calendar.between(from, to, physio -> true, limit);
+        metrics.record(BookingMetrics.Operation.SEARCH, started);
+        return found;
+    }
+
+    // Moves settled appointments that ended before 'cutoff' (attended, cancelled,
+    // or still open and so expired) out of the appointments list and every hot
+    // index into their therapists' cold stores, where only the report reads them.
+    // BOOKED appointments stay until attended or cancelled. Archiving is not
+    // journaled: snapshots include the cold store, and appointments replayed
+    // from the journal are simply archived again. Returns the number archived.
+    public int archiveBefore(LocalDateTime cutoff) {
+        calendar.advance(LocalDate.now());
+        List<Appointment> archived;
+        // Holding the list keeps a snapshot from seeing them in neither place
+        synchronized (appointments) {
+            archived = appointments.extract(a -> a.getStatus() != AppointmentStatus.BOOKED
+                    && !a.getEndTime().isAfter(cutoff));
+            if (archived.isEmpty()) {
+                return 0;
+            }
+            registryLock.writeLock().lock();
+            try {
+                for (Appointment appt : archived) {
+                    appointmentsById.remove(appt.getBookingId());
+                    appt.setListener(null);
+                }
+            } finally {
+                registryLock.writeLock().unlock();
+            }
+            aggregates.archived(archived);
+        }
+        for (Appointment appt : archived) {
+            openSlots.remove(appt);
+            calendar.remove(appt);
+            searchCache.invalidate(appt.getPhysiotherapist());
+            Patient patient = appt.getPatient();
+            if (patient != null) {
+                if (appt.getStatus() == AppointmentStatus.ATTENDED) {
+                    archivedPatients.add(patient);
+                }
+                unschedule(appt, patient);
+            }
+        }
+        return archived.size();
+    }
+
+    // Every appointment, archived ones included, as the snapshot sees it:
+    // detached copies and views, therapist by therapist
+    List<Appointment> getAppointments(Snapshot snapshot) {
+        List<Appointment> seen = new ArrayList<>();
+        for (ReportAggregates.Tally tally : aggregates.tallies()) {
+            tally.forEach(snapshot, seen::add);
+        }
+        return seen;
+    }
+
+    // Every archived appointment as a view, therapist by therapist
+    List<Appointment> getArchivedAppointments() {
+        List<Appointment> archived = new ArrayList<>();
+        for (ReportAggregates.Tally tally : aggregates.tallies()) {
+            archived.addAll(tally.archived());
+        }
+        return archived;
+    }
+
+    public SearchCache getSearchCache() {
+        return searchCache;
+    }
+
+    // Serves the query from the cache while no matching therapist's slots have
+    // changed. Otherwise materializes rule-based slots a week at a time, reading
+    // the open-slot index again only after a week that opened slots, until the
+    // search has 'limit' results, no therapist has rules or it reaches the
+    // horizon. An unlimited search materializes the whole horizon at once.
+    // The filter is built only after the roster is stamped, since it may come from the name index.
+    private List<Appointment> findAvailable(SearchCache.Key query, Supplier<Predicate<Physiotherapist>> filterOf) {
+        return findAvailable(query, filterOf, TermDictionary.NONE);
+    }
+
+    // As above; an expertise code, unless NONE, is read from the open-slot
+    // index's set for that expertise instead of merging the therapists' sets
+    private List<Appointment> findAvailable(SearchCache.Key query, Supplier<Predicate<Physiotherapist>> filterOf,
+                                            int expertise) {
+        long started = metrics.start();
+        LocalDate today = LocalDate.now();
+        List<Appointment> cached = searchCache.get(query, today);
+        if (cached != null) {
+            metrics.record(BookingMetrics.Operation.SEARCH, started);
+            return cached;
+        }
+
+        LocalDateTime from = query.from();
+        int limit = query.limit();
+        long roster = searchCache.rosterVersion();
+        Predicate<Physiotherapist> filter = filterOf.get();
+        List<Physiotherapist> matched = new ArrayList<>();
+        List<Physiotherapist> ruled = new ArrayList<>();
+        for (Physiotherapist physio : physiotherapists) {
+            if (filter.test(physio)) {
+                matched.add(physio);
+                if (!physio.getAvailabilityRules().isEmpty()) {
+                    ruled.add(physio);
+                }
+            }
+        }
+        Physiotherapist[] therapists = matched.toArray(new Physiotherapist[0]);
+        long[] versions = new long[therapists.length];
+
+        LocalDate start = from != null && from.toLocalDate().isAfter(today) ? from.toLocalDate() : today;
+        LocalDate horizon = start.plusDays(SEARCH_HORIZON_DAYS);
+        LocalDate until = limit == Integer.MAX_VALUE ? horizon : start;
+        List<Appointment> found = null;
+        while (true) {
+            until = until.plusWeeks(1).isAfter(horizon) ? horizon : until.plusWeeks(1);
+            int added = 0;
+            for (Physiotherapist physio : ruled) {
+                added += materializeSlots(physio, start, until);
+            }
+            if (found == null || added > 0) {
+                // Stamp after materializing and before reading, so any change the read may miss is caught
+                for (int i = 0; i < therapists.length; i++) {
+                    versions[i] = searchCache.version(therapists[i]);
+                }
+                found = expertise != TermDictionary.NONE
+                        ? openSlots.findByExpertise(expertise, from, limit, slot -> true)
+                        : openSlots.find(filter, from, limit);
+            }
+            if (found.size() >= limit || ruled.isEmpty() || !until.isBefore(horizon)) {
+                searchCache.put(query, today, roster, therapists, versions, found);
+                metrics.record(BookingMetrics.Operation.SEARCH, started);
+                return found;
+            }
+        }
+    }
+
+    // Generates every rule-based slot for [from, until) across all therapists in
+    // parallel, for pre-filling a long horizon in one go
+    public void prefillSlots(LocalDate from, LocalDate until) {
+        physiotherapists.parallelStream().forEach(physio -> materializeSlots(physio, from, until));
+    }
+
+    // Adds the therapist's slots for the days in [from, until) not generated
+    // before, and for rules added since, over the days that were. The new
+    // range is journaled ahead of its slots, together with their ID block, so
+    // recovery can tell a chunk cut off by a crash and roll it back rather
+    // than leave its days half generated. Returns the number of slots added.
+    private int materializeSlots(Physiotherapist physio, LocalDate from, LocalDate until) {
+        if (physio.getAvailabilityRules().isEmpty()) {
+            return 0;
+        }
+        Coverage range = materialized.computeIfAbsent(physio, k -> new Coverage(from));
+        Journal.deferSyncWaits();
+        try {
+            synchronized (range) {
+                List<AvailabilityRule> rules = List.copyOf(physio.getAvailabilityRules());
+                List<PendingSlot> pending = new ArrayList<>();
+                if (range.rules < rules.size()) {
+                    collectSlots(rules.subList(range.rules, rules.size()), range.from, range.until, pending);
+                }
+                // Extend the generated range downwards and upwards as needed
+                LocalDate newFrom = range.from;
+                LocalDate newUntil = range.until;
+                if (from.isBefore(until) && from.isBefore(range.from)) {
+                    collectSlots(rules, from, range.from, pending);
+                    newFrom = from;
+                }
+                if (from.isBefore(until) && until.isAfter(range.until)) {
+                    collectSlots(rules, range.until, until, pending);
+                    newUntil = until;
+                }
+                if (range.rules == rules.size() && newFrom == range.from && newUntil == range.until) {
+                    return 0;
+                }
+                // Before the range moves, so running out of IDs leaves it as it was
+                int id = reserveBookingIds(pending.size());
+                range.rules = rules.size();
+                range.from = newFrom;
+                range.until = newUntil;
+                Journal journal = this.journal;
+                if (journal != null) {
+                    journal.slotsMaterialized(range.of(physio), id, pending.size());
+                }
+                List<Appointment> slots = new ArrayList<>(pending.size());
+                for (PendingSlot slot : pending) {
+                    slots.add(new Appointment(id++, slot.start(), slot.start().plus(slot.rule().getSlotLength()),
+                            slot.rule().getTreatmentName(), physio, null, AppointmentStatus.AVAILABLE));
+                }
+                appointments.addAll(slots);
+                return slots.size();
+            }
+        } finally {
+            Journal.awaitDeferred();
+        }
+    }
+
+    // Each therapist's materialized range, for snapshots and backups. Every
+    // slot a range accounts for is in the appointments list by the time it is read.
+    List<SlotRange> materializedRanges() {
+        List<SlotRange> ranges = new ArrayList<>();
+        for (Map.Entry<Physiotherapist, Coverage> entry : materialized.entrySet()) {
+            Coverage range = entry.getValue();
+            synchronized (range) {
+                ranges.add(range.of(entry.getKey()));
+            }
+        }
+        return ranges;
+    }
+
+    SlotRange materializedRange(Physiotherapist physio) {
+        Coverage range = materialized.get(physio);
+        if (range == null) {
+            return null;
+        }
+        synchronized (range) {
+            return range.of(physio);
+        }
+    }
+
+    // Sets a therapist's materialized range whatever it was, e.g. when replaying
+    // a journal; null forgets it. Recorded like any other change.
+    void restoreMaterialized(Physiotherapist physio, SlotRange restored) {
+        if (restored == null) {
+            materialized.remove(physio);
+        } else {
+            Coverage range = materialized.computeIfAbsent(physio, k -> new Coverage(restored.from()));
+            synchronized (range) {
+                range.from = restored.from();
+                range.until = restored.until();
+                range.rules = restored.rules();
+            }
+        }
+        Journal journal = this.journal;
+        if (journal != null) {
+            journal.slotsMaterialized(restored != null ? restored : new SlotRange(physio, null, null, 0), 0, 0);
+        }
+    }
+
+    // Days [from, until) hold the slots of the therapist's first 'rules' rules
+    record SlotRange(Physiotherapist physio, LocalDate from, LocalDate until, int rules) {}
+
+    // A therapist's materialized range and the lock for extending it
+    private static final class Coverage {
+        LocalDate from;
+        LocalDate until;
+        int rules;
+
+        Coverage(LocalDate day) {
+            from = day;
+            until = day;
+        }
+
+        SlotRange of(Physiotherapist physio) {
+            return new SlotRange(physio, from, until, rules);
+        }
+    }
+
+    private record PendingSlot(LocalDateTime start, AvailabilityRule rule) {}
+
+    private static void collectSlots(List<AvailabilityRule> rules, LocalDate from, LocalDate until,
+                                     List<PendingSlot> pending) {
+        for (LocalDate day = from; day.isBefore(until); day = day.plusDays(1)) {
+            for (AvailabilityRule rule : rules) {
+                for (LocalDateTime start : rule.slotStartsOn(day)) {
+                    pending.add(new PendingSlot(start, rule));
+                }
+            }
+        }
+    }
+
+    public boolean hasTimeConflict(Patient patient, LocalDateTime start, LocalDateTime end) {
+        if (patient == null) {
+            return false;
+        }
+        synchronized (lockFor(patient)) {
+            PatientSchedule schedule = schedules.get(patient);
+            return schedule != null && schedule.overlaps(start, end);
+        }
+    }
+
+    private Object lockFor(Patient patient) {
+        int h = patient.hashCode();
+        return patientLocks[(h ^ (h >>> 16)) & (LOCK_STRIPES - 1)];
+    }
+
+    private int countAttendedAppointments(Physiotherapist physio) {
+        return (int) aggregates.count(physio, AppointmentStatus.ATTENDED);
+    }
+
+    public long countAppointments(Physiotherapist physio, AppointmentStatus status) {
+        return aggregates.count(physio, status);
+    }
+
+    public BookingMetrics getMetrics() {
+        return metrics;
+    }
+
+    // Physiotherapists by attended count, most first; ties keep list order
+    public List<Physiotherapist> rankByAttended() {
+        Map<Physiotherapist, Integer> attended = new HashMap<>();
+        for (Physiotherapist physio : physiotherapists) {
+            attended.put(physio, countAttendedAppointments(physio));
+        }
+        return rank(physiotherapists, attended);
+    }
+
+    // The therapists by the given attended counts, most first; ties keep their order
+    static List<Physiotherapist> rank(Collection<Physiotherapist> physios, Map<Physiotherapist, Integer> attended) {
+        List<Physiotherapist> ranked = new ArrayList<>(physios);
+        ranked.sort((p1, p2) -> Integer.compare(attended.getOrDefault(p2, 0), attended.getOrDefault(p1, 0)));
+        return ranked;
+    }
+
+    void setJournal(Journal journal) {
+        this.journal = journal;
+    }
+
+    void setEventBus(EventBus events) {
+        this.events = events;
+    }
+
+    // Confines generated booking IDs to [first, limit), e.g. to give partitions disjoint ranges
+    void limitBookingIds(int first, int limit) {
+        bookingIdLimit = limit;
+        nextBookingId.accumulateAndGet(first, Math::max);
+    }
+
+    // Index maintenance, driven by the patient and appointment lists and by Appointment itself
+    private void physiotherapistAdded(Physiotherapist physio) {
+        physiotherapistNames.add(physio);
+        physio.setListener(this::availabilityRuleAdded);
+        searchCache.invalidateAll();
+        Journal journal = this.journal;
+        if (journal != null) {
+            journal.physiotherapistAdded(physio);
+        }
+    }
+
+    private void physiotherapistRemoved(Physiotherapist physio) {
+        physiotherapistNames.remove(physio);
+        physio.setListener(null);
+        searchCache.invalidateAll();
+    }
+
+    // Opens the new rule's slots over the days already materialized, which
+    // later searches would not generate again
+    private void availabilityRuleAdded(Physiotherapist physio, int index, AvailabilityRule rule) {
+        Journal journal = this.journal;
+        if (journal != null) {
+            journal.availabilityRuleAdded(physio, index, rule);
+        }
+        if (materialized.containsKey(physio)) {
+            LocalDate today = LocalDate.now();
+            materializeSlots(physio, today, today);
+        }
+    }
+
+    private void patientAdded(Patient patient) {
+        registryLock.writeLock().lock();
+        try {
+            if (patientsById.containsKey(patient.getId())) {
+                throw new IllegalArgumentException("Duplicate patient ID: " + patient.getId());
+            }
+            patientsById.put(patient.getId(), patient);
+        } finally {
+            registryLock.writeLock().unlock();
+        }
+        patientNames.add(patient);
+        Journal journal = this.journal;
+        if (journal != null) {
+            journal.patientAdded(patient);
+        }
+        EventBus events = this.events;
+        if (events != null) {
+            Journal.runDeferred(() -> events.publishPatient(EventBus.Type.PATIENT_ADDED, patient));
+        }
+    }
+
+    private void patientRemoved(Patient patient) {
+        registryLock.writeLock().lock();
+        try {
+            patientsById.remove(patient.getId());
+        } finally {
+            registryLock.writeLock().unlock();
+        }
+        patientNames.remove(patient);
+        Journal journal = this.journal;
+        if (journal != null) {
+            journal.patientRemoved(patient);
+        }
+        EventBus events = this.events;
+        if (events != null) {
+            Journal.runDeferred(() -> events.publishPatient(EventBus.Type.PATIENT_REMOVED, patient));
+        }
+    }
+
+    private void appointmentAdded(Appointment appointment) {
+        registryLock.writeLock().lock();
+        try {
+            if (appointmentsById.containsKey(appointment.getBookingId())) {
+                throw new IllegalArgumentException("Duplicate booking ID: " + appointment.getBookingId());
+            }
+            // Start counting and listening before the appointment can be found by ID
+            aggregates.added(appointment);
+            appointment.setListener(this::appointmentChanged);
+            appointmentsById.put(appointment.getBookingId(), appointment);
+            // Keep generated IDs clear of any added with an explicit ID in their range
+            if (appointment.getBookingId() < bookingIdLimit) {
+                nextBookingId.accumulateAndGet(appointment.getBookingId() + 1, Math::max);
+            }
+        } finally {
+            registryLock.writeLock().unlock();
+        }
+        reconcileSchedule(appointment, appointment.getPatient());
+        openSlots.reconcile(appointment);
+        calendar.reconcile(appointment);
+        searchCache.invalidate(appointment.getPhysiotherapist());
+        Journal journal = this.journal;
+        if (journal != null) {
+            journal.appointmentAdded(appointment);
+        }
+    }
+
+    private void appointmentRemoved(Appointment appointment) {
+        registryLock.writeLock().lock();
+        try {
+            appointmentsById.remove(appointment.getBookingId());
+            appointment.setListener(null);
+            aggregates.removed(appointment);
+        } finally {
+            registryLock.writeLock().unlock();
+        }
+        openSlots.remove(appointment);
+        calendar.remove(appointment);
+        searchCache.invalidate(appointment.getPhysiotherapist());
+        Journal journal = this.journal;
+        if (journal != null) {
+            journal.appointmentRemoved(appointment);
+        }
+        Patient patient = appointment.getPatient();
+        if (patient != null) {
+            unschedule(appointment, patient);
+        }
+    }
+
+    private void unschedule(Appointment appointment, Patient patient) {
+        synchronized (lockFor(patient)) {
+            PatientSchedule schedule = schedules.get(patient);
+            if (schedule != null) {
+                schedule.remove(appointment);
+                if (schedule.isEmpty()) {
+                    schedules.remove(patient);
+                }
+            }
+        }
+    }
+
+    // Takes the next ID from this thread's block, so concurrent creators only
+    // meet on the shared counter once every ID_BLOCK appointments
+    private int newBookingId() {
+        int[] block = idBlock.get();
+        if (block[0] == block[1]) {
+            // Near the limit, take what is left rather than fail early
+            int count = Math.max(1, Math.min(ID_BLOCK, bookingIdLimit - nextBookingId.get()));
+            block[0] = reserveBookingIds(count);
+            block[1] = block[0] + count;
+        }
+        return block[0]++;
+    }
+
+    // Reserves 'count' consecutive booking IDs below the limit and returns the first
+    private int reserveBookingIds(int count) {
+        int limit = bookingIdLimit;
+        int first = nextBookingId.getAndAccumulate(count, (next, n) -> next <= limit - n ? next + n : next);
+        if (first > limit - count) {
+            throw new IllegalStateException("No booking IDs left below " + limit);
+        }
+        return first;
+    }
+
+    private void appointmentChanged(Appointment appointment, Appointment.State oldState, Appointment.State newState) {
+        reconcileSchedule(appointment, oldState.patient());
+        if (newState.patient() != oldState.patient()) {
+            reconcileSchedule(appointment, newState.patient());
+        }
+        metrics.transition(oldState.status(), newState.status());
+        if (oldState.status() != newState.status()) {
+            openSlots.reconcile(appointment);
+            calendar.reconcile(appointment);
+            searchCache.invalidate(appointment.getPhysiotherapist());
+            aggregates.transitioned(appointment, oldState.status(), newState.status());
+        }
+        Journal journal = this.journal;
+        if (journal != null) {
+            journal.appointmentChanged(appointment);
+        }
+        // Published once the caller's lock stripe is released, so a slow
+        // subscriber under BLOCK holds up this thread only, not the stripe
+        EventBus events = this.events;
+        if (events != null && oldState.status() != newState.status()) {
+            Patient patient = newState.patient() != null ? newState.patient() : oldState.patient();
+            Journal.runDeferred(() -> events.publishStatusChange(appointment, patient,
+                    oldState.status(), newState.status()));
+        }
+    }
+
+    // Moves an appointment whatever its state, e.g. when replaying a journal
+    void moveAppointment(Appointment appointment, LocalDateTime start, LocalDateTime end) {
+        Patient patient = appointment.getPatient();
+        if (patient == null) {
+            relocate(appointment, null, start, end);
+            return;
+        }
+        synchronized (lockFor(patient)) {
+            relocate(appointment, patient, start, end);
+        }
+    }
+
+    // Changes the appointment's times with it taken out of the time-ordered
+    // indexes, then records the move. The caller holds the patient's lock
+    // stripe; 'patient' is the one whose schedule may hold the appointment.
+    private void relocate(Appointment appointment, Patient patient, LocalDateTime start, LocalDateTime end) {
+        PatientSchedule schedule = patient != null ? schedules.get(patient) : null;
+        boolean scheduled = schedule != null && schedule.contains(appointment);
+        if (scheduled) {
+            schedule.remove(appointment);
+        }
+        openSlots.move(appointment, () -> calendar.move(appointment, () -> appointment.moveTo(start, end)));
+        if (scheduled) {
+            schedule.add(appointment);
+        }
+        searchCache.invalidate(appointment.getPhysiotherapist());
+        Journal journal = this.journal;
+        if (journal != null) {
+            journal.appointmentMoved(appointment);
+        }
+        EventBus events = this.events;
+        if (events != null && patient != null) {
+            Journal.runDeferred(() -> events.publishReschedule(appointment, patient));
+        }
+    }
+
+    // Brings the patient's schedule in line with the appointment's current state.
+    // Working from the current state rather than the reported transition keeps the
+    // index right even if listeners for racing transitions run out of order.
+    private void reconcileSchedule(Appointment appointment, Patient patient) {
+        if (patient == null) {
+            return;
+        }
+        synchronized (lockFor(patient)) {
+            Appointment.State current = appointment.getState();
+            boolean wanted = current.patient() == patient && current.status() != AppointmentStatus.CANCELLED;
+            PatientSchedule schedule = schedules.get(patient);
+            boolean present = schedule != null && schedule.contains(appointment);
+            if (wanted && !present) {
+                schedules.computeIfAbsent(patient, k -> new PatientSchedule()).add(appointment);
+            } else if (!wanted && present) {
+                schedule.remove(appointment);
+                if (schedule.isEmpty()) {
+                    schedules.remove(patient);
+                }
+            }
+        }
+    }
+
+    public List<Patient> getPatients() {
+        return patients;
+    }
+
+    public List<Appointment> getAppointments() {
+        return appointments;
+    }
+
+    public List<Physiotherapist> getPhysiotherapists() {
+        return physiotherapists;
+    }
+
+    public void changeOrCancelAppointmentFromInput(Scanner scanner) {
+        System.out.print("Enter booking ID to modify: ");
+        int bookingId = scanner.nextInt();
+        scanner.nextLine(); // consume newline
+
+        Appointment appointment = getAppointmentById(bookingId);
+
+        if (appointment == null) {
+            System.out.println("No appointment found with ID " + bookingId);
+            return;
+        }
+
+        System.out.println("1. Cancel Appointment");
+        System.out.println("2. Reschedule Appointment");
+        System.out.print("Choose option: ");
+        int choice = scanner.nextInt();
+        scanner.nextLine();
+
+        if (choice == 1) {
+            cancelAppointment(appointment);
+            System.out.println("Appointment cancelled.");
+        } else if (choice == 2) {
+            System.out.print("Enter new start time (yyyy-MM-ddTHH:mm): ");
+            String startInput = scanner.nextLine();
+            System.out.print("Enter new end time (yyyy-MM-ddTHH:mm): ");
+            String endInput = scanner.nextLine();
+            try {
+                LocalDateTime newStart = LocalDateTime.parse(startInput);
+                LocalDateTime newEnd = LocalDateTime.parse(endInput);
+
+                switch (reschedule(bookingId, newStart, newEnd)) {
+                    case BOOKED:
+                        System.out.println("Appointment rescheduled.");
+                        break;
+                    case TIME_CONFLICT:
+                        System.out.println("Conflict detected with existing appointments. Try a different time.");
+                        break;
+                    default:
+                        System.out.println("Only booked appointments can be rescheduled.");
+                }
+            } catch (DateTimeParseException e) {
+                System.out.println("Invalid date format.");
+            } catch (IllegalArgumentException e) {
+                System.out.println("Error: " + e.getMessage());
+            }
+        } else {
+            System.out.println("Invalid choice.");
+        }
+    }
+
+    public void attendAppointmentFromInput(Scanner scanner) {
+        System.out.print("Enter booking ID to mark as attended: ");
+        int bookingId = scanner.nextInt();
+        scanner.nextLine(); // consume newline
+
+        Appointment appointment = getAppointmentById(bookingId);
+
+        if (appointment == null) {
+            System.out.println("No appointment found with ID " + bookingId);
+            return;
+        }
+
+        if (attendAppointment(appointment)) {
+            System.out.println("Appointment marked as attended.");
+        } else {
+            System.out.println("Only booked appointments can be marked as attended.");
+        }
+    }
+
+
+
+
+
+
+
+
+}
\ No newline at end of file
@@ -0,0 +1,635 @@
+package clinic;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+// Bulk import of clinic data from CSV, and a compact binary backup format.
+//
+// CSV files start with a header line, which is skipped. Fields may be quoted,
+// with "" for a quote inside, but may not span lines. Times are ISO local
+// date-times, e.g. 2025-03-04T09:30.
+//
+//   physiotherapists: id,name,address,telephone,expertise   (areas separated by ';')
+//   patients:         id,name,address,telephone
+//   appointments:     booking_id,start,end,treatment,physiotherapist_id,patient_id,status
+//                     (patient_id empty for an open slot)
+//
+// A file is memory-mapped in chunks ending at line breaks, and the chunks are
+// parsed in parallel. The records are then checked for duplicate IDs, within
+// the file and against the system, and only if all are new are they added in
+// one pass, which builds the system's indexes as it goes. Import physiotherapists
+// and patients before the appointments that refer to them.
+class BulkLoader {
+    private static final int CHUNK = 8 << 20;
+    private static final int BACKUP_MAGIC = 0x424b5550; // "BKUP"
+    private static final short BACKUP_VERSION = 2;
+    private static final AppointmentStatus[] STATUSES = AppointmentStatus.values();
+    // Appointment flag bits in the backup; the low two bits hold the status
+    private static final int HAS_PATIENT = 1 << 2;
+    private static final int HAS_NANOS = 1 << 3;
+
+    private BulkLoader() {
+    }
+
+    public static int importPhysiotherapists(BookingSystem system, Path csv) throws IOException {
+        List<Physiotherapist> physios = parse(csv, row -> {
+            Physiotherapist physio = new Physiotherapist(row.nextInt(), row.nextString(), row.nextString(),
+                    row.nextString());
+            for (String area : row.nextString().split(";")) {
+                if (!area.isBlank()) {
+                    physio.addExpertise(area.strip());
+                }
+            }
+            return physio;
+        });
+        addPhysiotherapists(system, physios);
+        return physios.size();
+    }
+
+    public static int importPatients(BookingSystem system, Path csv) throws IOException {
+        List<Patient> patients = parse(csv, row -> new Patient(row.nextInt(), row.nextString(), row.nextString(),
+                row.nextString()));
+        addPatients(system, patients);
+        return patients.size();
+    }
+
+    public static int importAppointments(BookingSystem system, Path csv) throws IOException {
+        IntObjectMap<Physiotherapist> physios = physiotherapistsById(system);
+        List<Appointment> appointments = parse(csv, row -> {
+            int bookingId = row.nextInt();
+            LocalDateTime start = row.nextTime();
+            LocalDateTime end = row.nextTime();
+            String treatment = row.nextString();
+            int physioId = row.nextInt();
+            Physiotherapist physio = physios.get(physioId);
+            if (physio == null) {
+                throw new IllegalArgumentException("unknown physiotherapist " + physioId);
+            }
+            Patient patient = null;
+            if (!row.nextIsEmpty()) {
+                int patientId = row.nextInt();
+                patient = system.getPatientById(patientId);
+                if (patient == null) {
+                    throw new IllegalArgumentException("unknown patient " + patientId);
+                }
+            }
+            AppointmentStatus status = AppointmentStatus.valueOf(row.nextString());
+            return newAppointment(bookingId, start, end, treatment, physio, patient, status);
+        });
+        addAppointments(system, appointments);
+        return appointments.size();
+    }
+
+    // Writes therapists with their availability rules, patients, every
+    // appointment, archived ones included, and the days the rules have been
+    // materialized for, as one consistent cut: the appointments as one
+    // Snapshot sees them, and the people they refer to. Names are written once.
+    public static void exportBinary(BookingSystem system, Path file) throws IOException {
+        // Before the snapshot, so it includes every slot the ranges account for
+        List<BookingSystem.SlotRange> ranges = system.materializedRanges();
+        List<Appointment> appointments;
+        List<Physiotherapist> physios;
+        List<Patient> patients;
+        try (Snapshot snapshot = Snapshot.open()) {
+            appointments = system.getAppointments(snapshot);
+        }
+        // Copied after the snapshot, so they hold everyone its appointments
+        // refer to except people removed since, who are added back
+        synchronized (system.getPhysiotherapists()) {
+            physios = new ArrayList<>(system.getPhysiotherapists());
+        }
+        synchronized (system.getPatients()) {
+            patients = new ArrayList<>(system.getPatients());
+        }
+        Set<Physiotherapist> knownPhysios = Collections.newSetFromMap(new IdentityHashMap<>());
+        knownPhysios.addAll(physios);
+        Set<Patient> knownPatients = Collections.newSetFromMap(new IdentityHashMap<>());
+        knownPatients.addAll(patients);
+        for (Appointment appt : appointments) {
+            if (knownPhysios.add(appt.getPhysiotherapist())) {
+                physios.add(appt.getPhysiotherapist());
+            }
+            if (appt.getPatient() != null && knownPatients.add(appt.getPatient())) {
+                patients.add(appt.getPatient());
+            }
+        }
+
+        // File-local codes for the names, in order of first use
+        Map<String, Integer> terms = new HashMap<>();
+        List<String> termList = new ArrayList<>();
+        for (Physiotherapist physio : physios) {
+            for (String area : physio.getExpertiseAreas()) {
+                terms.computeIfAbsent(area, k -> { termList.add(k); return termList.size() - 1; });
+            }
+            for (AvailabilityRule rule : physio.getAvailabilityRules()) {
+                terms.computeIfAbsent(rule.getTreatmentName(), k -> { termList.add(k); return termList.size() - 1; });
+            }
+        }
+        for (Appointment appt : appointments) {
+            terms.computeIfAbsent(appt.getTreatmentName(), k -> { termList.add(k); return termList.size() - 1; });
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), 1 << 16))) {
+            out.writeInt(BACKUP_MAGIC);
+            out.writeShort(BACKUP_VERSION);
+            out.writeInt(termList.size());
+            for (String term : termList) {
+                out.writeUTF(term);
+            }
+            out.writeInt(physios.size());
+            for (Physiotherapist physio : physios) {
+                writePerson(out, physio);
+                List<String> areas = physio.getExpertiseAreas();
+                out.writeShort(areas.size());
+                for (String area : areas) {
+                    out.writeInt(terms.get(area));
+                }
+                List<AvailabilityRule> rules = physio.getAvailabilityRules();
+                out.writeShort(rules.size());
+                for (AvailabilityRule rule : rules) {
+                    out.writeByte(rule.getDay().getValue());
+                    out.writeLong(rule.getWindowStart().toNanoOfDay());
+                    out.writeLong(rule.getWindowEnd().toNanoOfDay());
+                    out.writeLong(rule.getSlotLength().toNanos());
+                    out.writeInt(terms.get(rule.getTreatmentName()));
+                }
+            }
+            out.writeInt(patients.size());
+            for (Patient patient : patients) {
+                writePerson(out, patient);
+            }
+            out.writeInt(appointments.size());
+            for (Appointment appt : appointments) {
+                writeAppointment(out, appt, terms);
+            }
+            out.writeInt(ranges.size());
+            for (BookingSystem.SlotRange range : ranges) {
+                out.writeInt(range.physio().getId());
+                out.writeLong(range.from().toEpochDay());
+                out.writeLong(range.until().toEpochDay());
+                out.writeShort(range.rules());
+            }
+        }
+    }
+
+    // Loads a backup written by exportBinary into the system, usually an empty
+    // one. As with the CSV import, everything is read and checked for
+    // duplicate IDs first, so a bad backup adds nothing.
+    public static void restoreBinary(BookingSystem system, Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != BACKUP_MAGIC || in.readShort() != BACKUP_VERSION) {
+                throw new IOException("Not a clinic backup: " + file);
+            }
+            String[] terms = new String[in.readInt()];
+            for (int i = 0; i < terms.length; i++) {
+                terms[i] = in.readUTF();
+            }
+            List<Physiotherapist> physios = new ArrayList<>();
+            for (int n = in.readInt(); n > 0; n--) {
+                Physiotherapist physio = new Physiotherapist(in.readInt(), in.readUTF(), in.readUTF(), in.readUTF());
+                for (int areas = in.readShort(); areas > 0; areas--) {
+                    physio.addExpertise(terms[in.readInt()]);
+                }
+                for (int rules = in.readShort(); rules > 0; rules--) {
+                    physio.addAvailabilityRule(new AvailabilityRule(DayOfWeek.of(in.readByte()),
+                            LocalTime.ofNanoOfDay(in.readLong()), LocalTime.ofNanoOfDay(in.readLong()),
+                            Duration.ofNanos(in.readLong()), terms[in.readInt()]));
+                }
+                physios.add(physio);
+            }
+            checkPhysiotherapists(system, physios);
+            IntObjectMap<Physiotherapist> physiosById = physiotherapistsById(system);
+            for (Physiotherapist physio : physios) {
+                physiosById.put(physio.getId(), physio);
+            }
+
+            List<Patient> patients = new ArrayList<>();
+            for (int n = in.readInt(); n > 0; n--) {
+                patients.add(new Patient(in.readInt(), in.readUTF(), in.readUTF(), in.readUTF()));
+            }
+            checkPatients(system, patients);
+            IntObjectMap<Patient> patientsById = new IntObjectMap<>(patients.size());
+            for (Patient patient : patients) {
+                patientsById.put(patient.getId(), patient);
+            }
+
+            int count = in.readInt();
+            List<Appointment> appointments = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                appointments.add(readAppointment(in, system, physiosById, patientsById, terms));
+            }
+            checkAppointments(system, appointments);
+
+            List<BookingSystem.SlotRange> ranges = new ArrayList<>();
+            for (int n = in.readInt(); n > 0; n--) {
+                Physiotherapist physio = physiosById.get(in.readInt());
+                if (physio == null) {
+                    throw new IOException("Backup refers to a missing physiotherapist");
+                }
+                ranges.add(new BookingSystem.SlotRange(physio, LocalDate.ofEpochDay(in.readLong()),
+                        LocalDate.ofEpochDay(in.readLong()), in.readShort()));
+            }
+
+            system.getPhysiotherapists().addAll(physios);
+            system.getPatients().addAll(patients);
+            system.getAppointments().addAll(appointments);
+            // Without these the rules' slots would be generated a second time
+            for (BookingSystem.SlotRange range : ranges) {
+                system.restoreMaterialized(range.physio(), range);
+            }
+        }
+    }
+
+    private static void addPhysiotherapists(BookingSystem system, List<Physiotherapist> physios) {
+        checkPhysiotherapists(system, physios);
+        system.getPhysiotherapists().addAll(physios);
+    }
+
+    private static void addPatients(BookingSystem system, List<Patient> patients) {
+        checkPatients(system, patients);
+        system.getPatients().addAll(patients);
+    }
+
+    private static void addAppointments(BookingSystem system, List<Appointment> appointments) {
+        checkAppointments(system, appointments);
+        system.getAppointments().addAll(appointments);
+    }
+
+    private static void checkPhysiotherapists(BookingSystem system, List<Physiotherapist> physios) {
+        IntObjectMap<Physiotherapist> known = physiotherapistsById(system);
+        for (Physiotherapist physio : physios) {
+            if (known.put(physio.getId(), physio) != null) {
+                throw new IllegalArgumentException("Duplicate physiotherapist ID: " + physio.getId());
+            }
+        }
+    }
+
+    private static void checkPatients(BookingSystem system, List<Patient> patients) {
+        IntObjectMap<Patient> seen = new IntObjectMap<>(patients.size());
+        for (Patient patient : patients) {
+            if (seen.put(patient.getId(), patient) != null || system.getPatientById(patient.getId()) != null) {
+                throw new IllegalArgumentException("Duplicate patient ID: " + patient.getId());
+            }
+        }
+    }
+
+    private static void checkAppointments(BookingSystem system, List<Appointment> appointments) {
+        IntObjectMap<Appointment> seen = new IntObjectMap<>(appointments.size());
+        for (Appointment appt : appointments) {
+            if (seen.put(appt.getBookingId(), appt) != null || system.getAppointmentById(appt.getBookingId()) != null) {
+                throw new IllegalArgumentException("Duplicate booking ID: " + appt.getBookingId());
+            }
+        }
+    }
+
+    private static IntObjectMap<Physiotherapist> physiotherapistsById(BookingSystem system) {
+        IntObjectMap<Physiotherapist> byId = new IntObjectMap<>();
+        synchronized (system.getPhysiotherapists()) {
+            for (Physiotherapist physio : system.getPhysiotherapists()) {
+                byId.put(physio.getId(), physio);
+            }
+        }
+        return byId;
+    }
+
+    private static Appointment newAppointment(int bookingId, LocalDateTime start, LocalDateTime end, String treatment,
+                                              Physiotherapist physio, Patient patient, AppointmentStatus status) {
+        if (!end.isAfter(start)) {
+            throw new IllegalArgumentException("end must be after start");
+        }
+        if ((patient == null) != (status == AppointmentStatus.AVAILABLE || status == AppointmentStatus.CANCELLED)) {
+            throw new IllegalArgumentException(status + " appointment " + (patient == null ? "needs" : "cannot have")
+                    + " a patient");
+        }
+        return new Appointment(bookingId, start, end, treatment, physio, patient, status);
+    }
+
+    private static void writePerson(DataOutputStream out, Person person) throws IOException {
+        out.writeInt(person.getId());
+        out.writeUTF(person.getName());
+        out.writeUTF(person.getAddress());
+        out.writeUTF(person.getTelephone());
+    }
+
+    // Flags, ID, start second, length in seconds, treatment, therapist and
+    // patient: 25 to 29 bytes unless the times carry fractions of a second
+    private static void writeAppointment(DataOutputStream out, Appointment appt, Map<String, Integer> terms)
+            throws IOException {
+        Appointment.State state = appt.getState();
+        LocalDateTime start = appt.getStartTime();
+        LocalDateTime end = appt.getEndTime();
+        boolean nanos = start.getNano() != 0 || end.getNano() != 0;
+        long startSecond = start.toEpochSecond(ZoneOffset.UTC);
+        out.writeByte(state.status().ordinal() | (state.patient() != null ? HAS_PATIENT : 0)
+                | (nanos ? HAS_NANOS : 0));
+        out.writeInt(appt.getBookingId());
+        out.writeLong(startSecond);
+        out.writeInt(Math.toIntExact(end.toEpochSecond(ZoneOffset.UTC) - startSecond));
+        if (nanos) {
+            out.writeInt(start.getNano());
+            out.writeInt(end.getNano());
+        }
+        out.writeInt(terms.get(appt.getTreatmentName()));
+        out.writeInt(appt.getPhysiotherapist().getId());
+        if (state.patient() != null) {
+            out.writeInt(state.patient().getId());
+        }
+    }
+
+    // People are looked up in the backup first, then in the system
+    private static Appointment readAppointment(DataInputStream in, BookingSystem system,
+                                               IntObjectMap<Physiotherapist> physios, IntObjectMap<Patient> patients,
+                                               String[] terms) throws IOException {
+        int flags = in.readUnsignedByte();
+        int bookingId = in.readInt();
+        long startSecond = in.readLong();
+        long endSecond = startSecond + in.readInt();
+        int startNano = 0;
+        int endNano = 0;
+        if ((flags & HAS_NANOS) != 0) {
+            startNano = in.readInt();
+            endNano = in.readInt();
+        }
+        String treatment = terms[in.readInt()];
+        Physiotherapist physio = physios.get(in.readInt());
+        Patient patient = null;
+        if ((flags & HAS_PATIENT) != 0) {
+            int patientId = in.readInt();
+            patient = patients.get(patientId);
+            if (patient == null) {
+                patient = system.getPatientById(patientId);
+            }
+        }
+        if (physio == null || ((flags & HAS_PATIENT) != 0 && patient == null)) {
+            throw new IOException("Backup refers to a missing person in booking " + bookingId);
+        }
+        return new Appointment(bookingId, LocalDateTime.ofEpochSecond(startSecond, startNano, ZoneOffset.UTC),
+                LocalDateTime.ofEpochSecond(endSecond, endNano, ZoneOffset.UTC), treatment, physio, patient,
+                STATUSES[flags & 3]);
+    }
+
+    private interface RowParser<T> {
+        T parse(Row row);
+    }
+
+    // Maps the file a chunk at a time and parses the chunks in parallel. The
+    // records come back in file order; the first bad line fails the whole file.
+    private static <T> List<T> parse(Path file, RowParser<T> parser) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = chunkBounds(channel);
+            List<Chunk<T>> chunks = IntStream.range(0, bounds.length - 1).parallel()
+                    .mapToObj(i -> {
+                        try {
+                            MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, bounds[i],
+                                    bounds[i + 1] - bounds[i]);
+                            return parseChunk(bytes, i == 0, parser);
+                        } catch (IOException e) {
+                            Chunk<T> failed = new Chunk<>();
+                            failed.error = e.toString();
+                            return failed;
+                        }
+                    })
+                    .toList();
+
+            List<T> records = new ArrayList<>();
+            long lines = 0;
+            for (Chunk<T> chunk : chunks) {
+                if (chunk.error != null) {
+                    throw new IllegalArgumentException(file.getFileName() + " line " + (lines + chunk.lines) + ": "
+                            + chunk.error);
+                }
+                lines += chunk.lines;
+                records.addAll(chunk.records);
+            }
+            return records;
+        }
+    }
+
+    // Offsets splitting the file into chunks of about CHUNK bytes, each ending just after a line break
+    private static long[] chunkBounds(FileChannel channel) throws IOException {
+        long size = channel.size();
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        long at = CHUNK;
+        while (at < size) {
+            long lineEnd = -1;
+            for (long scan = at; lineEnd < 0 && scan < size; scan += probe.limit()) {
+                probe.clear();
+                channel.read(probe, scan);
+                probe.flip();
+                for (int i = 0; i < probe.limit(); i++) {
+                    if (probe.get(i) == '\n') {
+                        lineEnd = scan + i + 1;
+                        break;
+                    }
+                }
+            }
+            if (lineEnd < 0 || lineEnd >= size) {
+                break;
+            }
+            bounds.add(lineEnd);
+            at = lineEnd + CHUNK;
+        }
+        bounds.add(size);
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static class Chunk<T> {
+        final List<T> records = new ArrayList<>();
+        // Lines read so far; on error, the number of the failing line within the chunk
+        long lines;
+        String error;
+    }
+
+    private static <T> Chunk<T> parseChunk(ByteBuffer bytes, boolean skipHeader, RowParser<T> parser) {
+        Chunk<T> chunk = new Chunk<>();
+        Row row = new Row(bytes);
+        int limit = bytes.limit();
+        int start = 0;
+        while (start < limit) {
+            int end = start;
+            while (end < limit && bytes.get(end) != '\n') {
+                end++;
+            }
+            chunk.lines++;
+            int lineEnd = end > start && bytes.get(end - 1) == '\r' ? end - 1 : end;
+            if (lineEnd > start && !(skipHeader && chunk.lines == 1)) {
+                row.reset(start, lineEnd);
+                try {
+                    chunk.records.add(parser.parse(row));
+                    row.expectEnd();
+                } catch (IllegalArgumentException | DateTimeException e) {
+                    chunk.error = e.getMessage();
+                    return chunk;
+                }
+            }
+            start = end + 1;
+        }
+        return chunk;
+    }
+
+    // Comma-separated fields of one line, read straight from the mapped bytes
+    private static class Row {
+        private final ByteBuffer bytes;
+        private byte[] scratch = new byte[256];
+        private int pos;
+        private int end;
+        // True once the last field has been read
+        private boolean done;
+
+        Row(ByteBuffer bytes) {
+            this.bytes = bytes;
+        }
+
+        void reset(int start, int end) {
+            this.pos = start;
+            this.end = end;
+            this.done = false;
+        }
+
+        int nextInt() {
+            checkField();
+            boolean negative = pos < end && bytes.get(pos) == '-';
+            int i = negative ? pos + 1 : pos;
+            int start = i;
+            long value = 0;
+            for (; i < end && bytes.get(i) != ','; i++) {
+                int digit = bytes.get(i) - '0';
+                if (digit < 0 || digit > 9 || value > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("bad number");
+                }
+                value = value * 10 + digit;
+            }
+            if (i == start || value > (negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE)) {
+                throw new IllegalArgumentException("bad number");
+            }
+            skipSeparator(i);
+            return (int) (negative ? -value : value);
+        }
+
+        String nextString() {
+            checkField();
+            int length = 0;
+            int i = pos;
+            if (i < end && bytes.get(i) == '"') {
+                for (i++; ; i++) {
+                    if (i >= end) {
+                        throw new IllegalArgumentException("unterminated quote");
+                    }
+                    byte b = bytes.get(i);
+                    if (b == '"') {
+                        if (i + 1 < end && bytes.get(i + 1) == '"') {
+                            i++;
+                        } else {
+                            i++;
+                            break;
+                        }
+                    }
+                    length = append(length, b);
+                }
+                if (i < end && bytes.get(i) != ',') {
+                    throw new IllegalArgumentException("text after closing quote");
+                }
+            } else {
+                for (; i < end && bytes.get(i) != ','; i++) {
+                    length = append(length, bytes.get(i));
+                }
+            }
+            skipSeparator(i);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        // Times of the form uuuu-MM-ddTHH:mm[:ss] are read without a formatter
+        LocalDateTime nextTime() {
+            checkField();
+            int i = pos;
+            while (i < end && bytes.get(i) != ',') {
+                i++;
+            }
+            int n = i - pos;
+            if ((n == 16 || n == 19) && bytes.get(pos + 4) == '-' && bytes.get(pos + 7) == '-'
+                    && bytes.get(pos + 10) == 'T' && bytes.get(pos + 13) == ':' && (n == 16 || bytes.get(pos + 16) == ':')) {
+                LocalDateTime time = LocalDateTime.of(digits(pos, 4), digits(pos + 5, 2), digits(pos + 8, 2),
+                        digits(pos + 11, 2), digits(pos + 14, 2), n == 19 ? digits(pos + 17, 2) : 0);
+                skipSeparator(i);
+                return time;
+            }
+            return LocalDateTime.parse(nextString());
+        }
+
+        // True, and consumes it, if the next field is empty
+        boolean nextIsEmpty() {
+            checkField();
+            if (pos < end && bytes.get(pos) != ',') {
+                return false;
+            }
+            skipSeparator(pos);
+            return true;
+        }
+
+        void expectEnd() {
+            if (!done) {
+                throw new IllegalArgumentException("too many fields");
+            }
+        }
+
+        private void checkField() {
+            if (done) {
+                throw new IllegalArgumentException("missing field");
+            }
+        }
+
+        private void skipSeparator(int at) {
+            done = at >= end;
+            pos = at + 1;
+        }
+
+        private int digits(int at, int count) {
+            int value = 0;
+            for (int i = at; i < at + count; i++) {
+                int digit = bytes.get(i) - '0';
+                if (digit < 0 || digit > 9) {
+                    throw new IllegalArgumentException("bad time");
+                }
+                value = value * 10 + digit;
+            }
+            return value;
+        }
+
+        private int append(int length, byte b) {
+            if (length == scratch.length) {
+                scratch = Arrays.copyOf(scratch, length * 2);
+            }
+            scratch[length] = b;
+            return length + 1;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package clinic;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+// Open slots of every therapist bucketed by the day they start, laid out like a
+// timing wheel. The WHEEL_DAYS days from the base day on each own a fixed
+// bucket, found by array index; other days wait in an overflow map and are
+// cascaded into the wheel as advance() turns it. A range query visits only the
+// buckets of the days it covers, so its cost follows the slots in the range
+// rather than the size of the calendar.
+class CalendarIndex {
+    // A power of two, so a day's bucket is its epoch day masked; about 2.8 years
+    private static final int WHEEL_DAYS = 1024;
+
+    private final NavigableSet<Appointment>[] wheel;
+    private final ConcurrentSkipListMap<Long, NavigableSet<Appointment>> overflow = new ConcurrentSkipListMap<>();
+    // Updates and queries share it; turning the wheel takes it exclusively
+    private final ReadWriteLock turning = new ReentrantReadWriteLock();
+    // Epoch day held by the first bucket; guarded by turning
+    private long base;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public CalendarIndex(LocalDate firstDay) {
+        wheel = new NavigableSet[WHEEL_DAYS];
+        for (int i = 0; i < WHEEL_DAYS; i++) {
+            wheel[i] = newBucket();
+        }
+        base = firstDay.toEpochDay();
+    }
+
+    // Adds or drops the appointment to match its current status. Updates for one
+    // appointment are serialized on it, as are moves, so the day it is filed
+    // under always matches its start time.
+    public void reconcile(Appointment appointment) {
+        turning.readLock().lock();
+        try {
+            synchronized (appointment) {
+                long day = dayOf(appointment);
+                if (appointment.getStatus() == AppointmentStatus.AVAILABLE) {
+                    bucket(day, true).add(appointment);
+                } else {
+                    drop(day, appointment);
+                }
+            }
+        } finally {
+            turning.readLock().unlock();
+        }
+    }
+
+    public void remove(Appointment appointment) {
+        turning.readLock().lock();
+        try {
+            synchronized (appointment) {
+                drop(dayOf(appointment), appointment);
+            }
+        } finally {
+            turning.readLock().unlock();
+        }
+    }
+
+    // Runs 'move', which changes the appointment's times, and refiles the
+    // appointment under its new day if it was indexed
+    public void move(Appointment appointment, Runnable move) {
+        turning.readLock().lock();
+        try {
+            synchronized (appointment) {
+                boolean present = drop(dayOf(appointment), appointment);
+                move.run();
+                if (present) {
+                    bucket(dayOf(appointment), true).add(appointment);
+                }
+            }
+        } finally {
+            turning.readLock().unlock();
+        }
+    }
+
+    // Open slots of the matching therapists starting in [from, to), in
+    // start-time order and cut off after 'limit'
+    public List<Appointment> between(LocalDateTime from, LocalDateTime to,
+                                     Predicate<Physiotherapist> therapistFilter, int limit) {
+        List<Appointment> result = new ArrayList<>();
+        if (!from.isBefore(to)) {
+            return result;
+        }
+        Appointment low = probe(from);
+        Appointment high = probe(to);
+        long last = to.toLocalDate().toEpochDay();
+        turning.readLock().lock();
+        try {
+            long day = from.toLocalDate().toEpochDay();
+            while (day <= last && result.size() < limit) {
+                if (day >= base && day < base + WHEEL_DAYS) {
+                    collect(wheel[slot(day)], low, high, therapistFilter, limit, result);
+                    day++;
+                    continue;
+                }
+                // Outside the wheel: skip straight to the next day with a bucket,
+                // but not past the first day of the wheel
+                long stop = day < base ? base : Long.MAX_VALUE;
+                Map.Entry<Long, NavigableSet<Appointment>> next = overflow.ceilingEntry(day);
+                if (next == null || next.getKey() >= stop) {
+                    day = stop;
+                } else {
+                    if (next.getKey() <= last) {
+                        collect(next.getValue(), low, high, therapistFilter, limit, result);
+                    }
+                    day = next.getKey() + 1;
+                }
+            }
+        } finally {
+            turning.readLock().unlock();
+        }
+        return result;
+    }
+
+    // Turns the wheel so it starts at 'firstDay'. Buckets of the days left
+    // behind go to the overflow map, the days coming into range are pulled in
+    // from it, and emptied overflow buckets are cleared out. Never turns back.
+    public void advance(LocalDate firstDay) {
+        long newBase = firstDay.toEpochDay();
+        turning.writeLock().lock();
+        try {
+            if (newBase <= base) {
+                return;
+            }
+            for (long day = base; day < Math.min(newBase, base + WHEEL_DAYS); day++) {
+                NavigableSet<Appointment> leaving = wheel[slot(day)];
+                if (!leaving.isEmpty()) {
+                    overflow.put(day, leaving);
+                    wheel[slot(day)] = newBucket();
+                }
+            }
+            long arriving = Math.max(newBase, base + WHEEL_DAYS);
+            Map<Long, NavigableSet<Appointment>> pulled = overflow.subMap(arriving, newBase + WHEEL_DAYS);
+            for (Map.Entry<Long, NavigableSet<Appointment>> entry : pulled.entrySet()) {
+                wheel[slot(entry.getKey())] = entry.getValue();
+            }
+            pulled.clear();
+            overflow.values().removeIf(NavigableSet::isEmpty);
+            base = newBase;
+        } finally {
+            turning.writeLock().unlock();
+        }
+    }
+
+    private static void collect(NavigableSet<Appointment> bucket, Appointment low, Appointment high,
+                                Predicate<Physiotherapist> therapistFilter, int limit, List<Appointment> result) {
+        for (Appointment appt : bucket.subSet(low, true, high, false)) {
+            if (result.size() >= limit) {
+                return;
+            }
+            // Sets are weakly consistent, so a slot may have been booked since it was filed
+            if (appt.getStatus() == AppointmentStatus.AVAILABLE && therapistFilter.test(appt.getPhysiotherapist())) {
+                result.add(appt);
+            }
+        }
+    }
+
+    // The day's bucket; overflow buckets are created on demand. Caller holds the read lock.
+    private NavigableSet<Appointment> bucket(long day, boolean create) {
+        if (day >= base && day < base + WHEEL_DAYS) {
+            return wheel[slot(day)];
+        }
+        return create ? overflow.computeIfAbsent(day, k -> newBucket()) : overflow.get(day);
+    }
+
+    private boolean drop(long day, Appointment appointment) {
+        NavigableSet<Appointment> bucket = bucket(day, false);
+        return bucket != null && bucket.remove(appointment);
+    }
+
+    private static int slot(long day) {
+        return (int) (day & (WHEEL_DAYS - 1));
+    }
+
+    private static long dayOf(Appointment appointment) {
+        return appointment.getStartTime().toLocalDate().toEpochDay();
+    }
+
+    private static NavigableSet<Appointment> newBucket() {
+        return new ConcurrentSkipListSet<>(OpenSlotIndex.BY_START);
+    }
+
+    // Sorts before every real appointment starting at the same time
+    private static Appointment probe(LocalDateTime at) {
+        return new Appointment(Integer.MIN_VALUE, at, at, null, null, null, AppointmentStatus.AVAILABLE);
+    }
+}
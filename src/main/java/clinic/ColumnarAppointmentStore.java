@@ -0,0 +1,250 @@
+package clinic;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+// Appointment store laid out as parallel primitive columns: times as epoch
+// minutes, status as a byte, therapist and patient as int codes into small
+// dictionaries, and treatment as its TermDictionary code. A row costs about 25 bytes instead of several
+// objects. Times are kept to the minute; seconds are dropped on add.
+//
+// get(row) builds a short-lived Appointment view on demand. A view reads and
+// writes its status and patient in the row, under the store's monitor, so all
+// views of a row and claim(row, ...) share one state and only one can claim it.
+// Times are copied into the view; a row cannot be moved.
+class ColumnarAppointmentStore implements AppointmentStore {
+    private static final int NO_PATIENT = -1;
+    private static final AppointmentStatus[] STATUSES = AppointmentStatus.values();
+
+    private int[] bookingIds;
+    private int[] startMinutes;
+    private int[] endMinutes;
+    private byte[] statuses;
+    private int[] therapists;
+    private int[] patients;
+    private int[] treatments;
+    private int size;
+
+    private final Dictionary<Physiotherapist> therapistCodes = new Dictionary<>(new IdentityHashMap<>());
+    private final Dictionary<Patient> patientCodes = new Dictionary<>(new IdentityHashMap<>());
+
+    public ColumnarAppointmentStore() {
+        this(1024);
+    }
+
+    public ColumnarAppointmentStore(int initialCapacity) {
+        int capacity = Math.max(16, initialCapacity);
+        bookingIds = new int[capacity];
+        startMinutes = new int[capacity];
+        endMinutes = new int[capacity];
+        statuses = new byte[capacity];
+        therapists = new int[capacity];
+        patients = new int[capacity];
+        treatments = new int[capacity];
+    }
+
+    @Override
+    public synchronized int add(Appointment appointment) {
+        if (size == bookingIds.length) {
+            grow();
+        }
+        int row = size++;
+        Appointment.State state = appointment.getState();
+        bookingIds[row] = appointment.getBookingId();
+        startMinutes[row] = toMinutes(appointment.getStartTime());
+        endMinutes[row] = toMinutes(appointment.getEndTime());
+        statuses[row] = (byte) state.status().ordinal();
+        therapists[row] = therapistCodes.encode(appointment.getPhysiotherapist());
+        patients[row] = state.patient() == null ? NO_PATIENT : patientCodes.encode(state.patient());
+        treatments[row] = appointment.getTreatmentCode();
+        return row;
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized Appointment get(int row) {
+        checkRow(row);
+        return new RowView(row, bookingIds[row], toTime(startMinutes[row]), toTime(endMinutes[row]),
+                TermDictionary.name(treatments[row]), therapistCodes.decode(therapists[row]));
+    }
+
+    @Override
+    public synchronized int getBookingId(int row) {
+        checkRow(row);
+        return bookingIds[row];
+    }
+
+    @Override
+    public synchronized LocalDateTime getStartTime(int row) {
+        checkRow(row);
+        return toTime(startMinutes[row]);
+    }
+
+    @Override
+    public synchronized AppointmentStatus getStatus(int row) {
+        checkRow(row);
+        return STATUSES[statuses[row]];
+    }
+
+    @Override
+    public synchronized boolean claim(int row, Patient patient) {
+        checkRow(row);
+        return writeRow(row, state -> state.status() == AppointmentStatus.AVAILABLE,
+                state -> new Appointment.State(AppointmentStatus.BOOKED, patient)) != null;
+    }
+
+    private synchronized Appointment.State stateOf(int row) {
+        int patient = patients[row];
+        return new Appointment.State(STATUSES[statuses[row]], patient == NO_PATIENT ? null : patientCodes.decode(patient));
+    }
+
+    // While 'when' accepts the row's state, replaces it with next(state).
+    // Returns the state replaced, or null if 'when' refused it.
+    private synchronized Appointment.State writeRow(int row, Predicate<Appointment.State> when,
+                                                    UnaryOperator<Appointment.State> next) {
+        Appointment.State current = stateOf(row);
+        if (!when.test(current)) {
+            return null;
+        }
+        Appointment.State state = next.apply(current);
+        statuses[row] = (byte) state.status().ordinal();
+        patients[row] = state.patient() == null ? NO_PATIENT : patientCodes.encode(state.patient());
+        return current;
+    }
+
+    private void grow() {
+        int capacity = bookingIds.length + (bookingIds.length >> 1);
+        bookingIds = Arrays.copyOf(bookingIds, capacity);
+        startMinutes = Arrays.copyOf(startMinutes, capacity);
+        endMinutes = Arrays.copyOf(endMinutes, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        therapists = Arrays.copyOf(therapists, capacity);
+        patients = Arrays.copyOf(patients, capacity);
+        treatments = Arrays.copyOf(treatments, capacity);
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        }
+    }
+
+    static int toMinutes(LocalDateTime time) {
+        return Math.toIntExact(time.toEpochSecond(ZoneOffset.UTC) / 60);
+    }
+
+    static LocalDateTime toTime(int epochMinutes) {
+        return LocalDateTime.ofEpochSecond(epochMinutes * 60L, 0, ZoneOffset.UTC);
+    }
+
+    // An Appointment whose status and patient live in the row. Transitions are
+    // checked and written under the store's monitor; listeners are told after.
+    private final class RowView extends Appointment {
+        private final int row;
+
+        RowView(int row, int bookingId, LocalDateTime start, LocalDateTime end,
+                String treatmentName, Physiotherapist physiotherapist) {
+            super(bookingId, start, end, treatmentName, physiotherapist, null, AppointmentStatus.AVAILABLE);
+            this.row = row;
+        }
+
+        @Override
+        public Patient getPatient() { return stateOf(row).patient(); }
+
+        @Override
+        public AppointmentStatus getStatus() { return stateOf(row).status(); }
+
+        @Override
+        State getState() { return stateOf(row); }
+
+        // Rows keep no history, so the copy holds the row as it is now
+        @Override
+        Appointment asOf(Snapshot snapshot) {
+            State state = stateOf(row);
+            return new Appointment(getBookingId(), getStartTime(), getEndTime(), getTreatmentName(),
+                    getPhysiotherapist(), state.patient(), state.status());
+        }
+
+        @Override
+        public void bookAppointment(Patient patient) {
+            change(state -> true, state -> new State(AppointmentStatus.BOOKED, patient));
+        }
+
+        @Override
+        public boolean claim(Patient patient) {
+            return change(state -> state.status() == AppointmentStatus.AVAILABLE,
+                    state -> new State(AppointmentStatus.BOOKED, patient));
+        }
+
+        @Override
+        boolean release(Patient patient) {
+            return change(state -> state.status() == AppointmentStatus.BOOKED && state.patient() == patient,
+                    state -> new State(AppointmentStatus.AVAILABLE, null));
+        }
+
+        @Override
+        public void cancelAppointment() {
+            change(state -> true, state -> new State(AppointmentStatus.CANCELLED, null));
+        }
+
+        @Override
+        public void attendAppointment() {
+            change(state -> state.status() == AppointmentStatus.BOOKED,
+                    state -> new State(AppointmentStatus.ATTENDED, state.patient()));
+        }
+
+        @Override
+        void restoreState(State newState) {
+            change(state -> true, state -> newState);
+        }
+
+        @Override
+        void moveTo(LocalDateTime startTime, LocalDateTime endTime) {
+            throw new UnsupportedOperationException("Row " + row + " cannot be moved");
+        }
+
+        private boolean change(Predicate<State> when, UnaryOperator<State> next) {
+            State oldState = writeRow(row, when, next);
+            if (oldState == null) {
+                return false;
+            }
+            fireChanged(oldState, next.apply(oldState));
+            return true;
+        }
+    }
+
+    // Assigns each distinct value a dense int code
+    private static class Dictionary<T> {
+        private final Map<T, Integer> codes;
+        private final List<T> values = new ArrayList<>();
+
+        Dictionary(Map<T, Integer> codes) {
+            this.codes = codes;
+        }
+
+        int encode(T value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                values.add(value);
+                codes.put(value, code);
+            }
+            return code;
+        }
+
+        T decode(int code) {
+            return values.get(code);
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package clinic;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+
+// Non-interactive command mode: runs one command per line against a
+// BookingSystem. Fields are separated by '|'; blank lines and lines starting
+// with '#' are skipped.
+//
+//   add-patient|<id>|<name>|<address>|<telephone>
+//   remove-patient|<id>
+//   book|<patientId>|<bookingId>
+//   reschedule|<bookingId>|<start>|<end>   (ISO times, e.g. 2025-03-04T09:30)
+//   cancel|<bookingId>
+//   attend|<bookingId>
+//   report[|text|csv|jsonl]
+//
+// Lines are parsed straight from a reused byte buffer, numbers without going
+// through String, and only failures and reports are written out, so large
+// imports are bounded by the booking engine rather than by I/O.
+class CommandRunner {
+    private static final byte SEP = '|';
+
+    private final BookingSystem system;
+    private final Writer out;
+
+    private byte[] line = new byte[256];
+    private int length;
+    private int pos;
+
+    private long executed;
+    private long failed;
+
+    public CommandRunner(BookingSystem system, Writer out) {
+        this.system = system;
+        this.out = out;
+    }
+
+    // Runs every command in the stream, then writes a one-line summary
+    public void run(InputStream in) throws IOException {
+        long started = System.nanoTime();
+        byte[] buffer = new byte[1 << 16];
+        long lineNumber = 0;
+        int n;
+        length = 0;
+        while ((n = in.read(buffer)) > 0) {
+            for (int i = 0; i < n; i++) {
+                byte b = buffer[i];
+                if (b == '\n') {
+                    execute(++lineNumber);
+                    length = 0;
+                } else if (b != '\r') {
+                    if (length == line.length) {
+                        line = Arrays.copyOf(line, length * 2);
+                    }
+                    line[length++] = b;
+                }
+            }
+        }
+        if (length > 0) {
+            execute(++lineNumber);
+        }
+
+        double seconds = (System.nanoTime() - started) / 1e9;
+        out.write(String.format("Processed %d commands (%d failed) in %.3f s, %.0f commands/s%n",
+                executed, failed, seconds, seconds > 0 ? executed / seconds : 0));
+        out.flush();
+    }
+
+    public long getExecuted() {
+        return executed;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    private void execute(long lineNumber) throws IOException {
+        if (length == 0 || line[0] == '#') {
+            return;
+        }
+        pos = 0;
+        executed++;
+        String error;
+        try {
+            error = dispatch();
+        } catch (IllegalArgumentException e) {
+            error = e.getMessage();
+        }
+        if (error != null) {
+            failed++;
+            out.write("line " + lineNumber + ": " + error + "\n");
+        }
+    }
+
+    // Returns null on success, otherwise the reason the command failed
+    private String dispatch() throws IOException {
+        if (command("book")) {
+            Patient patient = system.getPatientById(nextInt());
+            Appointment appt = system.getAppointmentById(nextInt());
+            if (patient == null || appt == null) {
+                return patient == null ? "patient not found" : "appointment not found";
+            }
+            BookingResult result = system.bookAppointment(patient, appt);
+            return result == BookingResult.BOOKED ? null : result.name();
+        }
+        if (command("reschedule")) {
+            int bookingId = nextInt();
+            LocalDateTime start;
+            LocalDateTime end;
+            try {
+                start = LocalDateTime.parse(nextString());
+                end = LocalDateTime.parse(nextString());
+            } catch (DateTimeParseException e) {
+                return "bad time";
+            }
+            if (!end.isAfter(start)) {
+                return "end must be after start";
+            }
+            BookingResult result = system.reschedule(bookingId, start, end);
+            return result == BookingResult.BOOKED ? null : result.name();
+        }
+        if (command("cancel")) {
+            Appointment appt = system.getAppointmentById(nextInt());
+            if (appt == null) {
+                return "appointment not found";
+            }
+            system.cancelAppointment(appt);
+            return null;
+        }
+        if (command("attend")) {
+            Appointment appt = system.getAppointmentById(nextInt());
+            if (appt == null) {
+                return "appointment not found";
+            }
+            return system.attendAppointment(appt) ? null : "appointment is not booked";
+        }
+        if (command("add-patient")) {
+            int id = nextInt();
+            Patient patient = new Patient(id, nextString(), nextString(), nextString());
+            if (system.getPatientById(id) != null) {
+                return "patient ID already exists";
+            }
+            system.getPatients().add(patient);
+            return null;
+        }
+        if (command("remove-patient")) {
+            Patient patient = system.getPatientById(nextInt());
+            if (patient == null) {
+                return "patient not found";
+            }
+            return system.removePatient(patient) ? null : "patient has active appointments";
+        }
+        if (command("report")) {
+            String format = pos < length ? nextString() : "text";
+            switch (format) {
+                case "csv":
+                    system.generateReport(out, ReportWriter.Format.CSV);
+                    break;
+                case "jsonl":
+                    system.generateReport(out, ReportWriter.Format.JSON_LINES);
+                    break;
+                case "text":
+                    system.generateReport(out, ReportWriter.Format.TEXT);
+                    break;
+                default:
+                    return "unknown report format " + format;
+            }
+            return null;
+        }
+        return "unknown command";
+    }
+
+    // Matches the first field against a command name without allocating
+    private boolean command(String name) {
+        int n = name.length();
+        if (length < n || (length > n && line[n] != SEP)) {
+            return false;
+        }
+        for (int i = 0; i < n; i++) {
+            if (line[i] != name.charAt(i)) {
+                return false;
+            }
+        }
+        pos = n == length ? n : n + 1;
+        return true;
+    }
+
+    private int nextInt() {
+        if (pos >= length) {
+            throw new IllegalArgumentException("missing number");
+        }
+        boolean negative = line[pos] == '-';
+        int i = negative ? pos + 1 : pos;
+        int start = i;
+        long value = 0;
+        for (; i < length && line[i] != SEP; i++) {
+            int digit = line[i] - '0';
+            if (digit < 0 || digit > 9 || value > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("bad number");
+            }
+            value = value * 10 + digit;
+        }
+        if (i == start || value > (negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE)) {
+            throw new IllegalArgumentException("bad number");
+        }
+        pos = i < length ? i + 1 : i;
+        return (int) (negative ? -value : value);
+    }
+
+    private String nextString() {
+        if (pos >= length) {
+            throw new IllegalArgumentException("missing field");
+        }
+        int start = pos;
+        int i = start;
+        while (i < length && line[i] != SEP) {
+            i++;
+        }
+        pos = i < length ? i + 1 : i;
+        return new String(line, start, i - start, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,212 @@
+package clinic;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// In-process bus carrying booking events to side-effect consumers (statistics,
+// notifications, audit, caches) off the booking path. Events go into a bounded
+// ring buffer: publishers claim a sequence number with a CAS, fill the slot and
+// mark it published; each subscriber runs on its own thread and takes every
+// published event after its own position in one batch. Publishing never waits
+// on a subscriber unless the ring is full, and then the Backpressure policy
+// decides between waiting for the slowest subscriber and dropping the event.
+class EventBus implements AutoCloseable {
+    enum Type { STATUS_CHANGED, RESCHEDULED, PATIENT_ADDED, PATIENT_REMOVED }
+
+    enum Backpressure {
+        // Publisher waits for the slowest subscriber; nothing is lost
+        BLOCK,
+        // Event is counted in dropped() and discarded; the booking never waits
+        DROP
+    }
+
+    // bookingId is 0 for patient events; from/to are null for them and for RESCHEDULED
+    record Event(Type type, long sequence, int bookingId, int patientId,
+                 AppointmentStatus from, AppointmentStatus to) {}
+
+    interface Subscriber {
+        // Called on the subscriber's thread with events in publish order;
+        // the list is only valid for the duration of the call
+        void onEvents(List<Event> batch);
+    }
+
+    private static final int MAX_BATCH = 256;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final Event[] ring;
+    private final AtomicLongArray published;
+    private final int mask;
+    private final Backpressure backpressure;
+    // Next sequence to claim
+    private final AtomicLong cursor = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private final List<Worker> workers = new CopyOnWriteArrayList<>();
+    private volatile boolean running = true;
+
+    // 'capacity' is rounded up to a power of two
+    public EventBus(int capacity, Backpressure backpressure) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.ring = new Event[size];
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            published.set(i, -1);
+        }
+        this.mask = size - 1;
+        this.backpressure = backpressure;
+    }
+
+    // Starts a consumer thread that sees every event published from now on.
+    // The worker is registered before its start is read: publishers that lap
+    // the ring in between wait for the provisional position, and every one
+    // that claims a sequence after the second read sees the final one.
+    public void subscribe(String name, Subscriber subscriber) {
+        Worker worker = new Worker(subscriber, cursor.get());
+        workers.add(worker);
+        worker.position = cursor.get();
+        Thread thread = new Thread(worker, "event-bus-" + name);
+        thread.setDaemon(true);
+        worker.thread = thread;
+        thread.start();
+    }
+
+    public boolean publishStatusChange(Appointment appointment, Patient patient,
+                                       AppointmentStatus from, AppointmentStatus to) {
+        return publish(Type.STATUS_CHANGED, appointment.getBookingId(),
+                patient != null ? patient.getId() : 0, from, to);
+    }
+
+    public boolean publishReschedule(Appointment appointment, Patient patient) {
+        return publish(Type.RESCHEDULED, appointment.getBookingId(), patient.getId(), null, null);
+    }
+
+    public boolean publishPatient(Type type, Patient patient) {
+        return publish(type, 0, patient.getId(), null, null);
+    }
+
+    // False if the event was dropped under the DROP policy or the bus is closed
+    private boolean publish(Type type, int bookingId, int patientId, AppointmentStatus from, AppointmentStatus to) {
+        long sequence;
+        int spins = 0;
+        while (true) {
+            if (!running) {
+                return false;
+            }
+            sequence = cursor.get();
+            if (sequence - slowestPosition() >= ring.length) {
+                if (backpressure == Backpressure.DROP) {
+                    dropped.increment();
+                    return false;
+                }
+                if (++spins > 100) {
+                    LockSupport.parkNanos(1_000);
+                } else {
+                    Thread.onSpinWait();
+                }
+                continue;
+            }
+            if (cursor.compareAndSet(sequence, sequence + 1)) {
+                break;
+            }
+        }
+        int index = (int) sequence & mask;
+        ring[index] = new Event(type, sequence, bookingId, patientId, from, to);
+        // The volatile write publishes the slot written above
+        published.set(index, sequence);
+        return true;
+    }
+
+    public long published() {
+        return cursor.get();
+    }
+
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    // Events published but not yet handled by the slowest subscriber
+    public long lag() {
+        return cursor.get() - slowestPosition();
+    }
+
+    // Waits until every subscriber has handled everything published so far
+    public boolean drain(long timeout, TimeUnit unit) {
+        long target = cursor.get();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (slowestPosition() < target) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+        return true;
+    }
+
+    // Stops accepting events, lets subscribers finish what was published, then stops them
+    @Override
+    public void close() {
+        running = false;
+        try {
+            for (Worker worker : workers) {
+                worker.thread.join(TimeUnit.SECONDS.toMillis(5));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private long slowestPosition() {
+        long slowest = Long.MAX_VALUE;
+        for (Worker worker : workers) {
+            slowest = Math.min(slowest, worker.position);
+        }
+        return slowest == Long.MAX_VALUE ? cursor.get() : slowest;
+    }
+
+    private final class Worker implements Runnable {
+        private final Subscriber subscriber;
+        // Next sequence this subscriber will read; slots before it may be reused
+        private volatile long position;
+        private Thread thread;
+
+        Worker(Subscriber subscriber, long position) {
+            this.subscriber = subscriber;
+            this.position = position;
+        }
+
+        @Override
+        public void run() {
+            List<Event> batch = new ArrayList<>(MAX_BATCH);
+            while (true) {
+                // Read the flag first, so a final pass after close sees every published slot
+                boolean stopping = !running;
+                long next = position;
+                while (batch.size() < MAX_BATCH && published.get((int) next & mask) == next) {
+                    batch.add(ring[(int) next & mask]);
+                    next++;
+                }
+                if (batch.isEmpty()) {
+                    if (stopping && next >= cursor.get()) {
+                        return;
+                    }
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    continue;
+                }
+                try {
+                    subscriber.onEvents(batch);
+                } catch (RuntimeException e) {
+                    // Report and skip the batch: a failing subscriber must not stall the ring
+                    Thread self = Thread.currentThread();
+                    self.getUncaughtExceptionHandler().uncaughtException(self, e);
+                }
+                batch.clear();
+                position = next;
+            }
+        }
+    }
+}
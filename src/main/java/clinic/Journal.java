@@ -0,0 +1,866 @@
+package clinic;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+// Append-only journal of BookingSystem mutations plus periodic snapshots.
+//
+// Records are framed as [length][crc32][type][payload] and appended to numbered
+// segment files. A background thread writes whatever has accumulated and
+// fsyncs it in one go (group commit); in SYNC mode a mutation waits for its
+// batch to be durable. Records are appended from callbacks that may run under
+// the system's locks, so a thread can put its SYNC waits off until it has
+// released them (deferSyncWaits), and other work with them (runDeferred).
+// checkpoint() rolls to a new segment, writes a snapshot and deletes the old
+// segments, so recovery loads the snapshot and replays only the tail. Every
+// record sets state rather than describing a delta, so replaying a record the
+// snapshot already reflects is harmless.
+class Journal implements Closeable {
+    enum Durability { SYNC, ASYNC }
+
+    private static final String SNAPSHOT = "snapshot.bin";
+    private static final int SNAPSHOT_MAGIC = 0x42504A53;
+
+    private static final byte ADD_PHYSIOTHERAPIST = 1;
+    private static final byte ADD_PATIENT = 2;
+    private static final byte REMOVE_PATIENT = 3;
+    private static final byte ADD_APPOINTMENT = 4;
+    private static final byte REMOVE_APPOINTMENT = 5;
+    // Book, cancel and attend: the status byte says which
+    private static final byte SET_STATUS = 6;
+    // Reschedule: the new start and end of an existing appointment
+    private static final byte MOVE = 7;
+    // An availability rule and its position in the therapist's list
+    private static final byte ADD_RULE = 8;
+    // A therapist's materialized range, and the IDs of the slots that follow
+    private static final byte SET_RANGE = 9;
+
+    // SYNC waits this thread has put off, per journal
+    private static final ThreadLocal<Deferral> deferral = ThreadLocal.withInitial(Deferral::new);
+
+    private final Path dir;
+    private final Durability durability;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition hasWork = lock.newCondition();
+    private final Condition flushed = lock.newCondition();
+    private final ByteArrayOutputStream scratch = new ByteArrayOutputStream(256);
+    private final DataOutputStream record = new DataOutputStream(scratch);
+    private final CRC32 crc = new CRC32();
+    private final Thread flusher;
+    // Periodic checkpoints, once started
+    private ScheduledExecutorService checkpoints;
+
+    // Guarded by lock
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream(1 << 16);
+    private ByteArrayOutputStream spare = new ByteArrayOutputStream(1 << 16);
+    private long appendedLsn;
+    private long durableLsn;
+    private long segment;
+    private FileChannel channel;
+    // True while the flusher writes a batch outside the lock
+    private boolean writing;
+    private IOException failure;
+    private boolean closing;
+
+    private Journal(Path dir, Durability durability, long segment, FileChannel channel) {
+        this.dir = dir;
+        this.durability = durability;
+        this.segment = segment;
+        this.channel = channel;
+        this.flusher = new Thread(this::flushLoop, "journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    // Rebuilds the (empty) system from the latest snapshot and journal tail in
+    // dir, then attaches a journal that records every further mutation
+    public static Journal open(Path dir, BookingSystem system, Durability durability) throws IOException {
+        Files.createDirectories(dir);
+        Replayer replayer = new Replayer(system);
+        long firstSegment = 0;
+        Path snapshot = dir.resolve(SNAPSHOT);
+        if (Files.exists(snapshot)) {
+            try (DataInputStream in = new DataInputStream(Files.newInputStream(snapshot))) {
+                firstSegment = replayer.loadSnapshot(in);
+            }
+        }
+
+        long lastSegment = firstSegment;
+        for (long seg : segments(dir)) {
+            if (seg < firstSegment) {
+                Files.delete(segmentPath(dir, seg));
+                continue;
+            }
+            replayer.replaySegment(segmentPath(dir, seg));
+            lastSegment = seg;
+        }
+
+        FileChannel channel = FileChannel.open(segmentPath(dir, lastSegment),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        Journal journal = new Journal(dir, durability, lastSegment, channel);
+        system.setJournal(journal);
+        // Journaled, so the next recovery sees the rollback too
+        replayer.rollBackTornRanges();
+        return journal;
+    }
+
+    // Mutation hooks, called by BookingSystem after each change
+
+    void physiotherapistAdded(Physiotherapist physio) {
+        append(ADD_PHYSIOTHERAPIST, out -> writePhysiotherapist(out, physio));
+    }
+
+    void patientAdded(Patient patient) {
+        append(ADD_PATIENT, out -> writePerson(out, patient));
+    }
+
+    void patientRemoved(Patient patient) {
+        append(REMOVE_PATIENT, out -> out.writeInt(patient.getId()));
+    }
+
+    void appointmentAdded(Appointment appointment) {
+        append(ADD_APPOINTMENT, out -> writeAppointment(out, appointment));
+    }
+
+    void appointmentRemoved(Appointment appointment) {
+        append(REMOVE_APPOINTMENT, out -> out.writeInt(appointment.getBookingId()));
+    }
+
+    // The state is read when the record is appended, so even if racing
+    // transitions report out of order the last record holds the final state
+    void appointmentChanged(Appointment appointment) {
+        append(SET_STATUS, out -> {
+            out.writeInt(appointment.getBookingId());
+            writeState(out, appointment.getState());
+        });
+    }
+
+    void appointmentMoved(Appointment appointment) {
+        append(MOVE, out -> {
+            out.writeInt(appointment.getBookingId());
+            writeTime(out, appointment.getStartTime());
+            writeTime(out, appointment.getEndTime());
+        });
+    }
+
+    void availabilityRuleAdded(Physiotherapist physio, int index, AvailabilityRule rule) {
+        append(ADD_RULE, out -> {
+            out.writeInt(physio.getId());
+            out.writeShort(index);
+            writeRule(out, rule);
+        });
+    }
+
+    // 'count' slots with IDs from 'firstId' on are added right after this
+    // record; a range without dates forgets the therapist's range
+    void slotsMaterialized(BookingSystem.SlotRange range, int firstId, int count) {
+        append(SET_RANGE, out -> {
+            writeRange(out, range);
+            out.writeInt(firstId);
+            out.writeInt(count);
+        });
+    }
+
+    // Until the matching awaitDeferred(), SYNC appends on this thread return
+    // without waiting. Scopes nest; the outermost awaitDeferred() waits for
+    // everything put off, so call it once the locks taken inside are released.
+    static void deferSyncWaits() {
+        deferral.get().depth++;
+    }
+
+    static void awaitDeferred() {
+        Deferral held = deferral.get();
+        if (--held.depth > 0) {
+            return;
+        }
+        Map<Journal, Long> owed = held.owed;
+        List<Runnable> after = held.after;
+        held.owed = null;
+        held.after = null;
+        try {
+            if (owed != null) {
+                for (Map.Entry<Journal, Long> entry : owed.entrySet()) {
+                    entry.getKey().awaitLsn(entry.getValue());
+                }
+            }
+        } finally {
+            if (after != null) {
+                after.forEach(Runnable::run);
+            }
+        }
+    }
+
+    // Runs 'action' once this thread leaves its deferral scope, after the SYNC
+    // waits, or at once outside a scope: for work that must not happen under
+    // the locks the scope covers, such as publishing events. Actions run in
+    // the order given.
+    static void runDeferred(Runnable action) {
+        Deferral held = deferral.get();
+        if (held.depth == 0) {
+            action.run();
+            return;
+        }
+        if (held.after == null) {
+            held.after = new ArrayList<>(2);
+        }
+        held.after.add(action);
+    }
+
+    // Blocks until everything appended so far is on disk
+    public void sync() throws IOException {
+        lock.lock();
+        try {
+            awaitDurable(appendedLsn);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Checkpoints the system every period on a daemon thread until closed
+    public synchronized void checkpointEvery(BookingSystem system, Duration period) {
+        if (checkpoints != null) {
+            throw new IllegalStateException("Checkpoints already scheduled");
+        }
+        checkpoints = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "journal-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checkpoints.scheduleWithFixedDelay(() -> {
+            try {
+                checkpoint(system);
+            } catch (IOException | RuntimeException e) {
+                // Report and keep the schedule: the journal still holds everything
+                Thread self = Thread.currentThread();
+                self.getUncaughtExceptionHandler().uncaughtException(self, e);
+            }
+        }, period.toMillis(), period.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    // Starts a new segment, snapshots the system and drops the segments the
+    // snapshot now covers
+    public void checkpoint(BookingSystem system) throws IOException {
+        long snapshotFrom;
+        lock.lock();
+        try {
+            // Roll only once the flusher is idle: it writes to the channel it
+            // took with its batch, and holding the lock keeps it from taking another
+            awaitIdle();
+            channel.close();
+            segment++;
+            channel = FileChannel.open(segmentPath(dir, segment),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            snapshotFrom = segment;
+        } finally {
+            lock.unlock();
+        }
+
+        Path tmp = dir.resolve(SNAPSHOT + ".tmp");
+        try (FileChannel file = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                     Channels.newOutputStream(file), 1 << 16))) {
+            writeSnapshot(out, system, snapshotFrom);
+            out.flush();
+            file.force(true);
+        }
+        Files.move(tmp, dir.resolve(SNAPSHOT), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        for (long seg : segments(dir)) {
+            if (seg < snapshotFrom) {
+                Files.deleteIfExists(segmentPath(dir, seg));
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        stopCheckpoints();
+        lock.lock();
+        try {
+            awaitDurable(appendedLsn);
+            closing = true;
+            hasWork.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        joinFlusher();
+        channel.close();
+    }
+
+    // Stops without flushing pending records, as a crash would
+    void halt() throws IOException {
+        stopCheckpoints();
+        lock.lock();
+        try {
+            closing = true;
+            pending.reset();
+            hasWork.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        joinFlusher();
+        channel.close();
+    }
+
+    // Lets a checkpoint in progress finish
+    private synchronized void stopCheckpoints() {
+        if (checkpoints == null) {
+            return;
+        }
+        checkpoints.shutdown();
+        try {
+            checkpoints.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void joinFlusher() {
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private interface RecordBody {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private void append(byte type, RecordBody body) {
+        lock.lock();
+        try {
+            if (closing) {
+                throw new IllegalStateException("Journal is closed");
+            }
+            // In either mode: once the flusher has stopped nothing would be written
+            if (failure != null) {
+                throw failure;
+            }
+            scratch.reset();
+            try {
+                record.writeByte(type);
+                body.write(record);
+            } catch (IOException e) {
+                // Writes to a ByteArrayOutputStream cannot fail
+                throw new IllegalStateException(e);
+            }
+            byte[] bytes = scratch.toByteArray();
+            crc.reset();
+            crc.update(bytes, 0, bytes.length);
+            writeInt(pending, bytes.length);
+            writeInt(pending, (int) crc.getValue());
+            pending.write(bytes, 0, bytes.length);
+            long lsn = ++appendedLsn;
+            hasWork.signal();
+            if (durability == Durability.SYNC) {
+                Deferral held = deferral.get();
+                if (held.depth > 0) {
+                    held.owe(this, lsn);
+                } else {
+                    awaitDurable(lsn);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void awaitLsn(long lsn) {
+        lock.lock();
+        try {
+            awaitDurable(lsn);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Caller holds lock. On return nothing is pending or being written.
+    private void awaitIdle() throws IOException {
+        while ((writing || pending.size() > 0) && failure == null) {
+            flushed.awaitUninterruptibly();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // Caller holds lock
+    private void awaitDurable(long lsn) throws IOException {
+        while (durableLsn < lsn && failure == null) {
+            flushed.awaitUninterruptibly();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            ByteArrayOutputStream batch;
+            long upTo;
+            FileChannel target;
+            lock.lock();
+            try {
+                while (pending.size() == 0 && !closing) {
+                    hasWork.awaitUninterruptibly();
+                }
+                if (pending.size() == 0) {
+                    return;
+                }
+                // Swap buffers so appenders keep going while this batch is written
+                batch = pending;
+                pending = spare;
+                spare = batch;
+                upTo = appendedLsn;
+                target = channel;
+                writing = true;
+            } finally {
+                lock.unlock();
+            }
+
+            IOException error = null;
+            try {
+                batch.writeTo(Channels.newOutputStream(target));
+                target.force(false);
+            } catch (IOException e) {
+                error = e;
+            }
+
+            lock.lock();
+            try {
+                batch.reset();
+                writing = false;
+                if (error != null) {
+                    failure = error;
+                } else {
+                    durableLsn = upTo;
+                }
+                flushed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            if (error != null) {
+                return;
+            }
+        }
+    }
+
+    // Encoding
+
+    private static void writeInt(ByteArrayOutputStream out, int v) {
+        out.write(v >>> 24);
+        out.write(v >>> 16);
+        out.write(v >>> 8);
+        out.write(v);
+    }
+
+    private static void writePerson(DataOutputStream out, Person person) throws IOException {
+        out.writeInt(person.getId());
+        out.writeUTF(person.getName());
+        out.writeUTF(person.getAddress());
+        out.writeUTF(person.getTelephone());
+    }
+
+    private static void writePhysiotherapist(DataOutputStream out, Physiotherapist physio) throws IOException {
+        writePerson(out, physio);
+        List<String> expertise = physio.getExpertiseAreas();
+        out.writeShort(expertise.size());
+        for (String area : expertise) {
+            out.writeUTF(area);
+        }
+        List<AvailabilityRule> rules = physio.getAvailabilityRules();
+        out.writeShort(rules.size());
+        for (AvailabilityRule rule : rules) {
+            writeRule(out, rule);
+        }
+    }
+
+    private static void writeRule(DataOutputStream out, AvailabilityRule rule) throws IOException {
+        out.writeByte(rule.getDay().getValue());
+        out.writeLong(rule.getWindowStart().toNanoOfDay());
+        out.writeLong(rule.getWindowEnd().toNanoOfDay());
+        out.writeLong(rule.getSlotLength().toNanos());
+        out.writeUTF(rule.getTreatmentName());
+    }
+
+    private static AvailabilityRule readRule(DataInputStream in) throws IOException {
+        return new AvailabilityRule(DayOfWeek.of(in.readByte()), LocalTime.ofNanoOfDay(in.readLong()),
+                LocalTime.ofNanoOfDay(in.readLong()), Duration.ofNanos(in.readLong()), in.readUTF());
+    }
+
+    private static void writeRange(DataOutputStream out, BookingSystem.SlotRange range) throws IOException {
+        out.writeInt(range.physio().getId());
+        out.writeBoolean(range.from() != null);
+        if (range.from() != null) {
+            out.writeLong(range.from().toEpochDay());
+            out.writeLong(range.until().toEpochDay());
+            out.writeShort(range.rules());
+        }
+    }
+
+    private static void writeAppointment(DataOutputStream out, Appointment appt) throws IOException {
+        out.writeInt(appt.getBookingId());
+        writeTime(out, appt.getStartTime());
+        writeTime(out, appt.getEndTime());
+        out.writeUTF(appt.getTreatmentName());
+        out.writeInt(appt.getPhysiotherapist().getId());
+        writeState(out, appt.getState());
+    }
+
+    private static void writeState(DataOutputStream out, Appointment.State state) throws IOException {
+        out.writeByte(state.status().ordinal());
+        out.writeBoolean(state.patient() != null);
+        if (state.patient() != null) {
+            out.writeInt(state.patient().getId());
+        }
+    }
+
+    private static void writeTime(DataOutputStream out, LocalDateTime time) throws IOException {
+        out.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(time.getNano());
+    }
+
+    private static LocalDateTime readTime(DataInputStream in) throws IOException {
+        long seconds = in.readLong();
+        return LocalDateTime.ofEpochSecond(seconds, in.readInt(), ZoneOffset.UTC);
+    }
+
+    private static void writeSnapshot(DataOutputStream out, BookingSystem system, long fromSegment) throws IOException {
+        List<Physiotherapist> physios = copyOf(system.getPhysiotherapists());
+        List<Patient> patients = copyOf(system.getPatients());
+        // Before the appointments, so they include every slot the ranges account for
+        List<BookingSystem.SlotRange> ranges = system.materializedRanges();
+        // Archived appointments first, taken under the same lock as the hot ones
+        List<Appointment> appointments;
+        synchronized (system.getAppointments()) {
+            appointments = system.getArchivedAppointments();
+            appointments.addAll(system.getAppointments());
+        }
+
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeLong(fromSegment);
+        out.writeInt(physios.size());
+        for (Physiotherapist physio : physios) {
+            writePhysiotherapist(out, physio);
+        }
+        out.writeInt(patients.size());
+        for (Patient patient : patients) {
+            writePerson(out, patient);
+        }
+        out.writeInt(appointments.size());
+        for (Appointment appt : appointments) {
+            writeAppointment(out, appt);
+        }
+        out.writeInt(ranges.size());
+        for (BookingSystem.SlotRange range : ranges) {
+            writeRange(out, range);
+        }
+    }
+
+    // The system's lists lock on themselves, so this copy is a consistent cut
+    private static <T> List<T> copyOf(List<T> list) {
+        synchronized (list) {
+            return new ArrayList<>(list);
+        }
+    }
+
+    private static Path segmentPath(Path dir, long segment) {
+        return dir.resolve(String.format("journal-%010d.log", segment));
+    }
+
+    private static List<Long> segments(Path dir) throws IOException {
+        List<Long> result = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.map(p -> p.getFileName().toString())
+                    .filter(n -> n.startsWith("journal-") && n.endsWith(".log"))
+                    .forEach(n -> result.add(Long.parseLong(n.substring(8, n.length() - 4))));
+        }
+        result.sort(null);
+        return result;
+    }
+
+    private static class Deferral {
+        int depth;
+        // Highest record appended to each journal, or null if none is owed
+        Map<Journal, Long> owed;
+        // Actions put off by runDeferred, or null if none
+        List<Runnable> after;
+
+        void owe(Journal journal, long lsn) {
+            if (owed == null) {
+                owed = new IdentityHashMap<>(2);
+            }
+            owed.merge(journal, lsn, Math::max);
+        }
+    }
+
+    // Applies snapshot and journal records to a system that has no journal attached
+    private static class Replayer {
+        private final BookingSystem system;
+        private final IntObjectMap<Physiotherapist> physiosById = new IntObjectMap<>();
+        // Materialized chunks whose slots have not all been replayed yet, by therapist ID
+        private final Map<Integer, Chunk> torn = new HashMap<>();
+
+        Replayer(BookingSystem system) {
+            this.system = system;
+            for (Physiotherapist physio : system.getPhysiotherapists()) {
+                physiosById.put(physio.getId(), physio);
+            }
+        }
+
+        long loadSnapshot(DataInputStream in) throws IOException {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Not a booking system snapshot");
+            }
+            long fromSegment = in.readLong();
+            for (int n = in.readInt(); n > 0; n--) {
+                apply(ADD_PHYSIOTHERAPIST, in);
+            }
+            for (int n = in.readInt(); n > 0; n--) {
+                apply(ADD_PATIENT, in);
+            }
+            for (int n = in.readInt(); n > 0; n--) {
+                apply(ADD_APPOINTMENT, in);
+            }
+            for (int n = in.readInt(); n > 0; n--) {
+                Physiotherapist physio = physiosById.get(in.readInt());
+                BookingSystem.SlotRange range = readRange(in, physio);
+                if (physio != null) {
+                    system.restoreMaterialized(physio, range);
+                }
+            }
+            return fromSegment;
+        }
+
+        // Undoes the chunks a crash cut off: removes the slots that made it and
+        // puts the therapist's range back, so the days are generated again whole
+        void rollBackTornRanges() {
+            torn.forEach((physioId, chunk) -> {
+                for (int id = chunk.firstId; id < chunk.firstId + chunk.count; id++) {
+                    Appointment slot = system.getAppointmentById(id);
+                    if (slot != null) {
+                        system.getAppointments().remove(slot);
+                    }
+                }
+                system.restoreMaterialized(physiosById.get(physioId), chunk.previous);
+            });
+            torn.clear();
+        }
+
+        // Replays whole records and cuts off a torn or corrupt tail
+        void replaySegment(Path file) throws IOException {
+            long good = 0;
+            try (InputStream raw = Files.newInputStream(file);
+                 DataInputStream in = new DataInputStream(new BufferedInputStream(raw, 1 << 16))) {
+                CRC32 crc = new CRC32();
+                while (true) {
+                    byte[] bytes;
+                    try {
+                        int length = in.readInt();
+                        int checksum = in.readInt();
+                        if (length <= 0 || length > 1 << 20) {
+                            break;
+                        }
+                        bytes = in.readNBytes(length);
+                        if (bytes.length < length) {
+                            break;
+                        }
+                        crc.reset();
+                        crc.update(bytes, 0, bytes.length);
+                        if ((int) crc.getValue() != checksum) {
+                            break;
+                        }
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    DataInputStream body = new DataInputStream(new ByteArrayInputStream(bytes));
+                    apply(body.readByte(), body);
+                    good += 8 + bytes.length;
+                }
+            }
+            if (Files.size(file) > good) {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                    channel.truncate(good);
+                    channel.force(true);
+                }
+            }
+        }
+
+        private void apply(byte type, DataInputStream in) throws IOException {
+            switch (type) {
+                case ADD_PHYSIOTHERAPIST: {
+                    Physiotherapist physio = new Physiotherapist(in.readInt(), in.readUTF(), in.readUTF(), in.readUTF());
+                    for (int n = in.readShort(); n > 0; n--) {
+                        physio.addExpertise(in.readUTF());
+                    }
+                    for (int n = in.readShort(), index = 0; index < n; index++) {
+                        physio.restoreAvailabilityRule(index, readRule(in));
+                    }
+                    if (!physiosById.containsKey(physio.getId())) {
+                        physiosById.put(physio.getId(), physio);
+                        system.getPhysiotherapists().add(physio);
+                    }
+                    break;
+                }
+                case ADD_PATIENT: {
+                    Patient patient = new Patient(in.readInt(), in.readUTF(), in.readUTF(), in.readUTF());
+                    if (system.getPatientById(patient.getId()) == null) {
+                        system.getPatients().add(patient);
+                    }
+                    break;
+                }
+                case REMOVE_PATIENT: {
+                    Patient patient = system.getPatientById(in.readInt());
+                    if (patient != null) {
+                        system.getPatients().remove(patient);
+                    }
+                    break;
+                }
+                case ADD_APPOINTMENT: {
+                    int bookingId = in.readInt();
+                    LocalDateTime start = readTime(in);
+                    LocalDateTime end = readTime(in);
+                    String treatment = in.readUTF();
+                    int physioId = in.readInt();
+                    Physiotherapist physio = physiosById.get(physioId);
+                    Appointment.State state = readState(in);
+                    Chunk chunk = torn.get(physioId);
+                    if (chunk != null && bookingId >= chunk.firstId && bookingId < chunk.firstId + chunk.count
+                            && ++chunk.replayed == chunk.count) {
+                        torn.remove(physioId);
+                    }
+                    Appointment existing = system.getAppointmentById(bookingId);
+                    if (existing != null) {
+                        existing.restoreState(state);
+                        if (!existing.getStartTime().equals(start) || !existing.getEndTime().equals(end)) {
+                            system.moveAppointment(existing, start, end);
+                        }
+                    } else {
+                        system.getAppointments().add(new Appointment(bookingId, start, end, treatment,
+                                physio, state.patient(), state.status()));
+                    }
+                    break;
+                }
+                case REMOVE_APPOINTMENT: {
+                    Appointment appt = system.getAppointmentById(in.readInt());
+                    if (appt != null) {
+                        system.getAppointments().remove(appt);
+                    }
+                    break;
+                }
+                case SET_STATUS: {
+                    Appointment appt = system.getAppointmentById(in.readInt());
+                    Appointment.State state = readState(in);
+                    if (appt != null) {
+                        appt.restoreState(state);
+                    }
+                    break;
+                }
+                case MOVE: {
+                    Appointment appt = system.getAppointmentById(in.readInt());
+                    LocalDateTime start = readTime(in);
+                    LocalDateTime end = readTime(in);
+                    if (appt != null) {
+                        system.moveAppointment(appt, start, end);
+                    }
+                    break;
+                }
+                case ADD_RULE: {
+                    Physiotherapist physio = physiosById.get(in.readInt());
+                    int index = in.readShort();
+                    AvailabilityRule rule = readRule(in);
+                    if (physio != null) {
+                        physio.restoreAvailabilityRule(index, rule);
+                    }
+                    break;
+                }
+                case SET_RANGE: {
+                    Physiotherapist physio = physiosById.get(in.readInt());
+                    BookingSystem.SlotRange range = readRange(in, physio);
+                    int firstId = in.readInt();
+                    int count = in.readInt();
+                    if (physio == null) {
+                        break;
+                    }
+                    if (count > 0) {
+                        torn.put(physio.getId(), new Chunk(system.materializedRange(physio), firstId, count));
+                    } else {
+                        torn.remove(physio.getId());
+                    }
+                    system.restoreMaterialized(physio, range);
+                    break;
+                }
+                default:
+                    throw new IOException("Unknown journal record type " + type);
+            }
+        }
+
+        // The rest of a range written by writeRange; null if it has no dates
+        private static BookingSystem.SlotRange readRange(DataInputStream in, Physiotherapist physio)
+                throws IOException {
+            if (!in.readBoolean()) {
+                return null;
+            }
+            return new BookingSystem.SlotRange(physio, LocalDate.ofEpochDay(in.readLong()),
+                    LocalDate.ofEpochDay(in.readLong()), in.readShort());
+        }
+
+        private Appointment.State readState(DataInputStream in) throws IOException {
+            AppointmentStatus status = AppointmentStatus.values()[in.readByte()];
+            Patient patient = in.readBoolean() ? system.getPatientById(in.readInt()) : null;
+            return new Appointment.State(status, patient);
+        }
+
+        private static class Chunk {
+            final BookingSystem.SlotRange previous;
+            final int firstId;
+            final int count;
+            int replayed;
+
+            Chunk(BookingSystem.SlotRange previous, int firstId, int count) {
+                this.previous = previous;
+                this.firstId = firstId;
+                this.count = count;
+            }
+        }
+    }
+}
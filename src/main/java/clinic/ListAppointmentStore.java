@@ -0,0 +1,46 @@
+package clinic;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// The object-per-appointment layout BookingSystem uses today
+class ListAppointmentStore implements AppointmentStore {
+    private final List<Appointment> appointments = new ArrayList<>();
+
+    @Override
+    public synchronized int add(Appointment appointment) {
+        appointments.add(appointment);
+        return appointments.size() - 1;
+    }
+
+    @Override
+    public synchronized int size() {
+        return appointments.size();
+    }
+
+    @Override
+    public synchronized Appointment get(int row) {
+        return appointments.get(row);
+    }
+
+    @Override
+    public int getBookingId(int row) {
+        return get(row).getBookingId();
+    }
+
+    @Override
+    public LocalDateTime getStartTime(int row) {
+        return get(row).getStartTime();
+    }
+
+    @Override
+    public AppointmentStatus getStatus(int row) {
+        return get(row).getStatus();
+    }
+
+    @Override
+    public boolean claim(int row, Patient patient) {
+        return get(row).claim(patient);
+    }
+}
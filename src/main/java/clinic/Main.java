@@ -0,0 +1,127 @@
+package clinic;
+
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Scanner;
+
+public class Main {
+    // Journal and snapshots of the clinic; -Dclinic.data=<dir> puts them elsewhere
+    private static final Path DATA = Path.of(System.getProperty("clinic.data", "clinic-data"));
+    private static final Duration CHECKPOINT_PERIOD = Duration.ofMinutes(15);
+
+    public static void main(String[] args) throws IOException {
+        // java -jar clinic-booking.jar --batch [file]   runs commands from the file, or stdin
+        if (args.length > 0 && args[0].equals("--batch")) {
+            runBatch(args.length > 1 ? args[1] : null);
+            return;
+        }
+        // java -jar clinic-booking.jar --serve [port]   serves the HTTP/JSON API, default port 8080
+        if (args.length > 0 && args[0].equals("--serve")) {
+            BookingSystem system = new BookingSystem();
+            Journal journal = open(system, Journal.Durability.SYNC);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    journal.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }, "journal-close"));
+            // Keeps yesterday and older out of the hot paths; the report still shows them
+            new Archiver(system, 1, Duration.ofHours(1));
+            BookingServer server = new BookingServer(system);
+            server.start(args.length > 1 ? Integer.parseInt(args[1]) : 8080);
+            System.out.println("Listening on port " + server.getPort());
+            return;
+        }
+
+        BookingSystem system = new BookingSystem();
+        Journal journal = open(system, Journal.Durability.SYNC);
+
+        Scanner scanner = new Scanner(System.in);
+        boolean running = true;
+
+        while (running) {
+            System.out.println("\n=== Boost Physio Clinic Booking System ===");
+            System.out.println("1. Add Patient");
+            System.out.println("2. Remove Patient");
+            System.out.println("3. Book Appointment");
+            System.out.println("4. Change/Cancel Appointment");
+            System.out.println("5. Attend Appointment");
+            System.out.println("6. Generate Report");
+            System.out.println("7. Exit");
+            System.out.print("Select an option: ");
+
+            int choice = scanner.nextInt();
+            scanner.nextLine(); // Consume newline
+
+            switch (choice) {
+                case 1:
+                    system.addPatientFromInput(scanner);
+                    break;
+                case 2:
+                    system.removePatientFromInput(scanner);
+                    break;
+                case 3:
+                    system.bookAppointmentFromInput(scanner);
+                    break;
+                case 4:
+                    system.changeOrCancelAppointmentFromInput(scanner);
+                    break;
+                case 5:
+                    system.attendAppointmentFromInput(scanner);
+                    break;
+                case 6:
+                    system.generateReport();
+                    break;
+                case 7:
+                    running = false;
+                    break;
+                default:
+                    System.out.println("Invalid option. Please try again.");
+            }
+        }
+
+        scanner.close();
+        // Leaves a fresh snapshot, so the next start replays nothing
+        journal.checkpoint(system);
+        journal.close();
+        System.out.println("System exited. Goodbye!");
+    }
+
+    // Batch runs are journaled without waiting per command; closing makes them durable
+    private static void runBatch(String file) throws IOException {
+        BookingSystem system = new BookingSystem();
+        CommandRunner runner;
+        Journal journal = open(system, Journal.Durability.ASYNC);
+        try {
+            Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+            try (InputStream in = file == null ? System.in : new FileInputStream(file)) {
+                runner = new CommandRunner(system, out);
+                runner.run(in);
+            }
+        } finally {
+            journal.close();
+        }
+        if (runner.getFailed() > 0) {
+            System.exit(1);
+        }
+    }
+
+    // Recovers the clinic from the data directory, seeding the sample data on
+    // the first run, and checkpoints it periodically from then on
+    private static Journal open(BookingSystem system, Journal.Durability durability) throws IOException {
+        Journal journal = Journal.open(DATA, system, durability);
+        if (system.getPhysiotherapists().isEmpty()) {
+            system.initializeSampleData();
+        }
+        journal.checkpointEvery(system, CHECKPOINT_PERIOD);
+        return journal;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,62 @@
+package clinic;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Case-insensitive index over Person names, kept as a sorted map from the
+// folded name plus a '\0' and the ID (so namesakes get distinct keys) to the
+// person. Exact and prefix lookups are a range scan, so they cost a log-time
+// seek plus the size of the result and can stop after 'limit' matches.
+class NameIndex<T extends Person> {
+    private static final char SEPARATOR = '\0';
+
+    private final ConcurrentSkipListMap<String, T> byName = new ConcurrentSkipListMap<>();
+
+    static String fold(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    public void add(T person) {
+        byName.put(key(person), person);
+    }
+
+    public void remove(T person) {
+        byName.remove(key(person), person);
+    }
+
+    // Everyone whose name equals 'name', ignoring case, in ID order
+    public List<T> exact(String name) {
+        String folded = fold(name);
+        return collect(byName.subMap(folded + SEPARATOR, folded + (char) (SEPARATOR + 1)), Integer.MAX_VALUE);
+    }
+
+    // The first 'limit' people, alphabetically, whose name starts with 'prefix', ignoring case
+    public List<T> prefix(String prefix, int limit) {
+        String folded = fold(prefix);
+        return collect(byName.subMap(folded, folded + Character.MAX_VALUE), limit);
+    }
+
+    public int size() {
+        return byName.size();
+    }
+
+    // The ID is packed into two chars, biased so that keys of namesakes sort by ID
+    private static String key(Person person) {
+        int id = person.getId() ^ Integer.MIN_VALUE;
+        return fold(person.getName()) + SEPARATOR + (char) (id >>> 16) + (char) id;
+    }
+
+    private static <T> List<T> collect(ConcurrentNavigableMap<String, T> range, int limit) {
+        List<T> found = new ArrayList<>(Math.min(limit, 16));
+        for (T person : range.values()) {
+            if (found.size() >= limit) {
+                break;
+            }
+            found.add(person);
+        }
+        return found;
+    }
+}
@@ -0,0 +1,121 @@
+package clinic;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+// ArrayList-backed list that reports every element added or removed, so the
+// owner can keep side indexes in step even when callers edit the list directly.
+// If the add callback throws, the element is taken back out again. Element
+// access and mutation are synchronized so concurrent writers stay consistent.
+// 'enter' and 'exit' run around each change outside the monitor, once around
+// a whole addAll, for callback work that must not wait while holding it.
+class ObservableList<E> extends AbstractList<E> implements RandomAccess {
+    private final List<E> elements = new ArrayList<>();
+    private final Consumer<E> onAdd;
+    private final Consumer<E> onRemove;
+    private final Runnable enter;
+    private final Runnable exit;
+
+    public ObservableList(Consumer<E> onAdd, Consumer<E> onRemove) {
+        this(onAdd, onRemove, () -> { }, () -> { });
+    }
+
+    public ObservableList(Consumer<E> onAdd, Consumer<E> onRemove, Runnable enter, Runnable exit) {
+        this.onAdd = onAdd;
+        this.onRemove = onRemove;
+        this.enter = enter;
+        this.exit = exit;
+    }
+
+    @Override
+    public synchronized E get(int index) {
+        return elements.get(index);
+    }
+
+    @Override
+    public synchronized int size() {
+        return elements.size();
+    }
+
+    @Override
+    public E set(int index, E element) {
+        enter.run();
+        try {
+            synchronized (this) {
+                E old = elements.set(index, element);
+                onRemove.accept(old);
+                try {
+                    onAdd.accept(element);
+                } catch (RuntimeException e) {
+                    elements.set(index, old);
+                    onAdd.accept(old);
+                    throw e;
+                }
+                return old;
+            }
+        } finally {
+            exit.run();
+        }
+    }
+
+    @Override
+    public void add(int index, E element) {
+        enter.run();
+        try {
+            synchronized (this) {
+                elements.add(index, element);
+                try {
+                    onAdd.accept(element);
+                } catch (RuntimeException e) {
+                    elements.remove(index);
+                    throw e;
+                }
+                modCount++;
+            }
+        } finally {
+            exit.run();
+        }
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends E> added) {
+        enter.run();
+        try {
+            return super.addAll(index, added);
+        } finally {
+            exit.run();
+        }
+    }
+
+    @Override
+    public E remove(int index) {
+        enter.run();
+        try {
+            synchronized (this) {
+                E old = elements.remove(index);
+                modCount++;
+                onRemove.accept(old);
+                return old;
+            }
+        } finally {
+            exit.run();
+        }
+    }
+
+    // Takes every matching element out in one pass and returns them, without the
+    // remove callback. For moving elements elsewhere rather than deleting them;
+    // the caller keeps its own indexes in step.
+    public synchronized List<E> extract(Predicate<? super E> filter) {
+        List<E> taken = new ArrayList<>();
+        elements.removeIf(e -> filter.test(e) && taken.add(e));
+        if (!taken.isEmpty()) {
+            modCount++;
+        }
+        return taken;
+    }
+}
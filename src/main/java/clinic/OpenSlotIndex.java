@@ -0,0 +1,213 @@
+package clinic;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Predicate;
+
+// Index of AVAILABLE appointments, one start-time ordered set per physiotherapist
+// and, inverted, one per expertise holding the open slots of every therapist
+// with it. Expertise searches read their one set from 'from' onwards, so they
+// touch only the slots they return or skip, however many therapists there are.
+// Other searches pick the matching therapists and merge their sets in time
+// order, stopping after the first N results.
+// The price is on the booking path: each transition also puts or removes the
+// slot in one set per expertise of its therapist, and those sets are large. At
+// 100k slots a book/cancel cycle rose from about 16us to 34us (EventBusBenchmark,
+// no bus), against a first expertise page falling from 134us to 16us.
+class OpenSlotIndex {
+    static final Comparator<Appointment> BY_START =
+            Comparator.comparing(Appointment::getStartTime).thenComparingInt(Appointment::getBookingId);
+
+    private final Map<Physiotherapist, TherapistSlots> byTherapist = new ConcurrentHashMap<>();
+    private final Map<Integer, NavigableSet<Appointment>> byExpertise = new ConcurrentHashMap<>();
+    // Physiotherapist.profileChanges() when every therapist's expertise was last caught up
+    private volatile long profilesSeen = -1;
+
+    // Adds or drops the appointment to match its current status. Updates for one
+    // therapist are serialized so racing transitions cannot leave a stale entry.
+    public void reconcile(Appointment appointment) {
+        TherapistSlots therapist = slotsOf(appointment.getPhysiotherapist());
+        synchronized (therapist) {
+            therapist.catchUp();
+            if (appointment.getStatus() == AppointmentStatus.AVAILABLE) {
+                therapist.add(appointment);
+            } else {
+                therapist.remove(appointment);
+            }
+        }
+    }
+
+    // Runs 'move', which changes the appointment's times, with the appointment
+    // out of its therapist's sets, so the sets' ordering is never violated
+    public void move(Appointment appointment, Runnable move) {
+        TherapistSlots therapist = slotsOf(appointment.getPhysiotherapist());
+        synchronized (therapist) {
+            therapist.catchUp();
+            boolean present = therapist.remove(appointment);
+            move.run();
+            if (present) {
+                therapist.add(appointment);
+            }
+        }
+    }
+
+    public void remove(Appointment appointment) {
+        TherapistSlots therapist = slotsOf(appointment.getPhysiotherapist());
+        synchronized (therapist) {
+            therapist.catchUp();
+            therapist.remove(appointment);
+        }
+    }
+
+    // Open slots of the matching therapists starting at or after 'from' (null for
+    // no lower bound), merged in start-time order and cut off after 'limit'
+    public List<Appointment> find(Predicate<Physiotherapist> therapistFilter, LocalDateTime from, int limit) {
+        return find(therapistFilter, from, limit, slot -> true);
+    }
+
+    // As above, leaving out slots 'slotFilter' rejects as the merge reaches them,
+    // so only the slots up to the last result are ever tested
+    public List<Appointment> find(Predicate<Physiotherapist> therapistFilter, LocalDateTime from, int limit,
+                                  Predicate<Appointment> slotFilter) {
+        PriorityQueue<Cursor> heads = new PriorityQueue<>(Comparator.comparing((Cursor c) -> c.head, BY_START));
+        for (Map.Entry<Physiotherapist, TherapistSlots> entry : byTherapist.entrySet()) {
+            if (therapistFilter.test(entry.getKey())) {
+                Cursor cursor = new Cursor(tail(entry.getValue().slots, from));
+                if (cursor.advance()) {
+                    heads.add(cursor);
+                }
+            }
+        }
+
+        List<Appointment> result = new ArrayList<>();
+        while (result.size() < limit && !heads.isEmpty()) {
+            Cursor cursor = heads.poll();
+            if (slotFilter.test(cursor.head)) {
+                result.add(cursor.head);
+            }
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+        return result;
+    }
+
+    // Open slots of therapists with the expertise (a TermDictionary code), as
+    // find() would return them, read straight from the expertise's set
+    public List<Appointment> findByExpertise(int code, LocalDateTime from, int limit,
+                                             Predicate<Appointment> slotFilter) {
+        catchUpAll();
+        List<Appointment> result = new ArrayList<>();
+        NavigableSet<Appointment> slots = byExpertise.get(code);
+        if (slots == null) {
+            return result;
+        }
+        Cursor cursor = new Cursor(tail(slots, from));
+        while (result.size() < limit && cursor.advance()) {
+            if (slotFilter.test(cursor.head)) {
+                result.add(cursor.head);
+            }
+        }
+        return result;
+    }
+
+    // Expertise added since the last query: file each therapist's open slots
+    // under its new codes before any expertise set is read
+    private void catchUpAll() {
+        long profiles = Physiotherapist.profileChanges();
+        if (profiles == profilesSeen) {
+            return;
+        }
+        for (TherapistSlots therapist : byTherapist.values()) {
+            synchronized (therapist) {
+                therapist.catchUp();
+            }
+        }
+        profilesSeen = profiles;
+    }
+
+    private TherapistSlots slotsOf(Physiotherapist physio) {
+        return byTherapist.computeIfAbsent(physio, TherapistSlots::new);
+    }
+
+    private NavigableSet<Appointment> expertiseSet(int code) {
+        return byExpertise.computeIfAbsent(code, k -> new ConcurrentSkipListSet<>(BY_START));
+    }
+
+    private static Iterator<Appointment> tail(NavigableSet<Appointment> slots, LocalDateTime from) {
+        return from == null ? slots.iterator() : slots.tailSet(probe(from), true).iterator();
+    }
+
+    // Sorts before every real appointment starting at the same time
+    private static Appointment probe(LocalDateTime from) {
+        return new Appointment(Integer.MIN_VALUE, from, from, null, null, null, AppointmentStatus.AVAILABLE);
+    }
+
+    // One therapist's open slots, and the expertise sets they are filed in too.
+    // Changed only while holding the instance's monitor.
+    private class TherapistSlots {
+        final Physiotherapist physio;
+        final NavigableSet<Appointment> slots = new ConcurrentSkipListSet<>(BY_START);
+        // The therapist's expertise codes the slots are filed under; the
+        // therapist replaces its array on every change, so identity tells
+        int[] codes = new int[0];
+
+        TherapistSlots(Physiotherapist physio) {
+            this.physio = physio;
+        }
+
+        void catchUp() {
+            int[] current = physio.expertiseCodes();
+            if (current == codes) {
+                return;
+            }
+            // Expertise is only ever added, at the end
+            for (int i = codes.length; i < current.length; i++) {
+                expertiseSet(current[i]).addAll(slots);
+            }
+            codes = current;
+        }
+
+        void add(Appointment appointment) {
+            slots.add(appointment);
+            for (int code : codes) {
+                expertiseSet(code).add(appointment);
+            }
+        }
+
+        boolean remove(Appointment appointment) {
+            for (int code : codes) {
+                expertiseSet(code).remove(appointment);
+            }
+            return slots.remove(appointment);
+        }
+    }
+
+    private static class Cursor {
+        private final Iterator<Appointment> slots;
+        private Appointment head;
+
+        Cursor(Iterator<Appointment> slots) {
+            this.slots = slots;
+        }
+
+        // Moves to the next slot that is still open; set iterators are weakly consistent
+        boolean advance() {
+            while (slots.hasNext()) {
+                head = slots.next();
+                if (head.getStatus() == AppointmentStatus.AVAILABLE) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
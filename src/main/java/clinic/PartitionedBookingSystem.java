@@ -0,0 +1,316 @@
+package clinic;
+
+import java.io.BufferedWriter;
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+
+// Routes bookings across independent BookingSystem partitions, one per clinic
+// or group of therapists. Each therapist, with all their appointments, lives in
+// exactly one partition, so bookings in different partitions share no locks.
+// Patients are registered in every partition. A booking takes only this
+// router's lock stripe for the patient, to check the patient's other
+// partitions for clashes. Cross-partition searches run on the fork/join
+// common pool, one task per partition, and merge the results.
+//
+// Partition p owns booking IDs [p << ID_BITS, (p + 1) << ID_BITS): its own
+// generator stays inside that range, and appointments added with an explicit
+// ID must take it from there too.
+//
+// Go through the router for every change: booking on a partition directly
+// skips the cross-partition conflict check.
+class PartitionedBookingSystem {
+    private static final int LOCK_STRIPES = 64;
+    private static final int ID_BITS = 24;
+
+    private final BookingSystem[] partitions;
+    private final ToIntFunction<Physiotherapist> partitionKey;
+    // Index of each therapist's partition
+    private final Map<Physiotherapist, Integer> home = new ConcurrentHashMap<>();
+    private final Object[] patientLocks = new Object[LOCK_STRIPES];
+
+    // 'partitionKey' picks the partition (modulo the count), e.g. a clinic number
+    public PartitionedBookingSystem(int partitionCount, ToIntFunction<Physiotherapist> partitionKey) {
+        if (partitionCount < 1 || partitionCount > 1 << (31 - ID_BITS)) {
+            throw new IllegalArgumentException("Partition count out of range: " + partitionCount);
+        }
+        this.partitions = new BookingSystem[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            partitions[i] = new BookingSystem();
+            partitions[i].limitBookingIds(firstBookingId(i), bookingIdLimit(i));
+        }
+        this.partitionKey = partitionKey;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            patientLocks[i] = new Object();
+        }
+    }
+
+    // Spreads therapists across partitions by ID
+    public static PartitionedBookingSystem byPhysiotherapist(int partitionCount) {
+        return new PartitionedBookingSystem(partitionCount, Physiotherapist::getId);
+    }
+
+    public void addPhysiotherapist(Physiotherapist physio) {
+        int index = Math.floorMod(partitionKey.applyAsInt(physio), partitions.length);
+        if (home.putIfAbsent(physio, index) != null) {
+            throw new IllegalArgumentException("Physiotherapist already added: " + physio.getName());
+        }
+        partitions[index].getPhysiotherapists().add(physio);
+    }
+
+    public void addPatient(Patient patient) {
+        for (BookingSystem partition : partitions) {
+            partition.getPatients().add(patient);
+        }
+    }
+
+    // False if the patient still has a booked appointment in any partition.
+    // Like the other operations that hold a stripe, waits for SYNC journals once
+    // the stripe is released.
+    public boolean removePatient(Patient patient) {
+        Journal.deferSyncWaits();
+        try {
+            synchronized (lockFor(patient)) {
+                for (BookingSystem partition : partitions) {
+                    if (partition.hasBookedAppointments(patient)) {
+                        return false;
+                    }
+                }
+                for (BookingSystem partition : partitions) {
+                    partition.getPatients().remove(patient);
+                }
+                return true;
+            }
+        } finally {
+            Journal.awaitDeferred();
+        }
+    }
+
+    // The booking ID must lie in the range of the therapist's partition
+    public void addAppointment(Appointment appointment) {
+        int bookingId = appointment.getBookingId();
+        int index = indexOf(appointment.getPhysiotherapist());
+        if (bookingId < firstBookingId(index) || bookingId >= bookingIdLimit(index)) {
+            throw new IllegalArgumentException("Booking ID " + bookingId + " is outside the range of partition " + index);
+        }
+        if (getAppointmentById(bookingId) != null) {
+            throw new IllegalArgumentException("Duplicate booking ID: " + bookingId);
+        }
+        partitions[index].getAppointments().add(appointment);
+    }
+
+    // The first booking ID available to appointments of this therapist
+    public int firstBookingId(Physiotherapist physio) {
+        return firstBookingId(indexOf(physio));
+    }
+
+    public BookingResult bookAppointment(Patient patient, Appointment appointment) {
+        BookingSystem partition = partitionOf(appointment.getPhysiotherapist());
+        Journal.deferSyncWaits();
+        try {
+            synchronized (lockFor(patient)) {
+                if (appointment.getStatus() != AppointmentStatus.AVAILABLE) {
+                    return BookingResult.SLOT_UNAVAILABLE;
+                }
+                for (BookingSystem other : partitions) {
+                    if (other != partition
+                            && other.hasTimeConflict(patient, appointment.getStartTime(), appointment.getEndTime())) {
+                        return BookingResult.TIME_CONFLICT;
+                    }
+                }
+                return partition.bookAppointment(patient, appointment);
+            }
+        } finally {
+            Journal.awaitDeferred();
+        }
+    }
+
+    public BookingResult reschedule(int bookingId, LocalDateTime newStart, LocalDateTime newEnd) {
+        Appointment appointment = getAppointmentById(bookingId);
+        if (appointment == null) {
+            return BookingResult.NOT_FOUND;
+        }
+        Patient patient = appointment.getPatient();
+        if (patient == null) {
+            return BookingResult.SLOT_UNAVAILABLE;
+        }
+        BookingSystem partition = partitionOf(appointment.getPhysiotherapist());
+        Journal.deferSyncWaits();
+        try {
+            synchronized (lockFor(patient)) {
+                for (BookingSystem other : partitions) {
+                    if (other != partition && other.hasTimeConflict(patient, newStart, newEnd)) {
+                        return BookingResult.TIME_CONFLICT;
+                    }
+                }
+                return partition.reschedule(bookingId, newStart, newEnd);
+            }
+        } finally {
+            Journal.awaitDeferred();
+        }
+    }
+
+    public void cancelAppointment(Appointment appointment) {
+        partitionOf(appointment.getPhysiotherapist()).cancelAppointment(appointment);
+    }
+
+    public boolean attendAppointment(Appointment appointment) {
+        return partitionOf(appointment.getPhysiotherapist()).attendAppointment(appointment);
+    }
+
+    public Patient getPatientById(int id) {
+        return partitions[0].getPatientById(id);
+    }
+
+    public Appointment getAppointmentById(int bookingId) {
+        int index = bookingId >>> ID_BITS;
+        return index < partitions.length ? partitions[index].getAppointmentById(bookingId) : null;
+    }
+
+    public List<Patient> findPatientsByNamePrefix(String prefix, int limit) {
+        return partitions[0].findPatientsByNamePrefix(prefix, limit);
+    }
+
+    // Each partition finds its own first 'limit' slots in parallel; the merge keeps the earliest
+    public List<Appointment> getAvailableAppointmentsByExpertise(String expertise, LocalDateTime from, int limit) {
+        return Arrays.stream(partitions).parallel()
+                .flatMap(partition -> partition.getAvailableAppointmentsByExpertise(expertise, from, limit).stream())
+                .sorted(OpenSlotIndex.BY_START)
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    // Each partition finds its own earliest k, checking clashes in every partition
+    public List<Appointment> findEarliestSlots(Patient patient, String expertise, LocalDateTime from, int k) {
+        Predicate<Appointment> fits = slot -> Arrays.stream(partitions)
+                .noneMatch(partition -> partition.hasTimeConflict(patient, slot.getStartTime(), slot.getEndTime()));
+        return Arrays.stream(partitions).parallel()
+                .flatMap(partition -> partition.findEarliestSlots(expertise, from, k, fits).stream())
+                .sorted(OpenSlotIndex.BY_START)
+                .limit(k)
+                .collect(Collectors.toList());
+    }
+
+    public List<Appointment> getAvailableAppointmentsBetween(LocalDateTime from, LocalDateTime to, int limit) {
+        return Arrays.stream(partitions).parallel()
+                .flatMap(partition -> partition.getAvailableAppointmentsBetween(from, to, limit).stream())
+                .sorted(OpenSlotIndex.BY_START)
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    public int archiveBefore(LocalDateTime cutoff) {
+        return Arrays.stream(partitions).parallel().mapToInt(partition -> partition.archiveBefore(cutoff)).sum();
+    }
+
+    public long countAppointments(Physiotherapist physio, AppointmentStatus status) {
+        return partitionOf(physio).countAppointments(physio, status);
+    }
+
+    public List<Physiotherapist> rankByAttended() {
+        List<Physiotherapist> ranked = Arrays.stream(partitions).parallel()
+                .flatMap(partition -> partition.getPhysiotherapists().stream())
+                .collect(Collectors.toCollection(ArrayList::new));
+        Map<Physiotherapist, Long> attended = ranked.parallelStream().collect(Collectors.toConcurrentMap(
+                physio -> physio, physio -> countAppointments(physio, AppointmentStatus.ATTENDED)));
+        ranked.sort(Comparator.comparing(attended::get, Comparator.reverseOrder()));
+        return ranked;
+    }
+
+    // Partitions render their appointment sections in parallel on the common
+    // pool, each into its own buffer and all from one shared snapshot, and the
+    // buffers go to the sink in partition order. Only as many partitions as the
+    // pool has threads are rendered ahead of the one being written, so memory
+    // is a few partitions' sections, not the whole report. The ranking merged
+    // from the counts the partitions saw follows.
+    public void generateReport(Writer sink, ReportWriter.Format format) throws IOException {
+        Writer out = sink instanceof BufferedWriter ? sink : new BufferedWriter(sink, 1 << 16);
+        ReportWriter report = ReportWriter.create(format, out);
+        report.begin();
+        Map<Physiotherapist, Integer> attended = new HashMap<>();
+        try (Snapshot snapshot = Snapshot.open()) {
+            int window = Math.max(1, ForkJoinPool.getCommonPoolParallelism());
+            Deque<CompletableFuture<Section>> ahead = new ArrayDeque<>();
+            int next = 0;
+            while (next < partitions.length || !ahead.isEmpty()) {
+                while (next < partitions.length && ahead.size() < window) {
+                    ahead.add(render(partitions[next++], format, snapshot));
+                }
+                Section section = ahead.remove().join();
+                section.text().writeTo(out);
+                attended.putAll(section.attended());
+            }
+        }
+        List<Physiotherapist> physios = new ArrayList<>();
+        for (BookingSystem partition : partitions) {
+            physios.addAll(partition.getPhysiotherapists());
+        }
+
+        report.rankingHeader();
+        for (Physiotherapist physio : BookingSystem.rank(physios, attended)) {
+            report.ranking(physio, attended.getOrDefault(physio, 0));
+        }
+        out.flush();
+    }
+
+    private record Section(CharArrayWriter text, Map<Physiotherapist, Integer> attended) {}
+
+    private static CompletableFuture<Section> render(BookingSystem partition, ReportWriter.Format format,
+                                                     Snapshot snapshot) {
+        return CompletableFuture.supplyAsync(() -> {
+            CharArrayWriter text = new CharArrayWriter();
+            try {
+                return new Section(text, partition.writeAppointmentSections(ReportWriter.create(format, text), snapshot));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    public List<BookingSystem> getPartitions() {
+        return Collections.unmodifiableList(Arrays.asList(partitions));
+    }
+
+    public BookingSystem partitionOf(Physiotherapist physio) {
+        return partitions[indexOf(physio)];
+    }
+
+    private int indexOf(Physiotherapist physio) {
+        Integer index = home.get(physio);
+        if (index == null) {
+            throw new IllegalArgumentException("Unknown physiotherapist: " + physio.getName());
+        }
+        return index;
+    }
+
+    // Partition i owns booking IDs [firstBookingId(i), bookingIdLimit(i))
+    private static int firstBookingId(int partition) {
+        return Math.max(1, partition << ID_BITS);
+    }
+
+    private static int bookingIdLimit(int partition) {
+        return (int) Math.min(Integer.MAX_VALUE, (long) (partition + 1) << ID_BITS);
+    }
+
+    private Object lockFor(Patient patient) {
+        int h = patient.hashCode();
+        return patientLocks[(h ^ (h >>> 16)) & (LOCK_STRIPES - 1)];
+    }
+}
@@ -0,0 +1,63 @@
+package clinic;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+// Interval index over one patient's non-cancelled appointments, sorted by start time.
+// Remembering the longest appointment bounds how far back an overlap can begin, so
+// an overlap query only visits the entries that can actually clash. Not
+// thread-safe: BookingSystem guards each schedule with its patient's lock stripe.
+class PatientSchedule {
+    private final NavigableMap<LocalDateTime, List<Appointment>> byStart = new TreeMap<>();
+    private Duration longest = Duration.ZERO;
+    private int size;
+
+    public void add(Appointment appointment) {
+        byStart.computeIfAbsent(appointment.getStartTime(), k -> new ArrayList<>(1)).add(appointment);
+        Duration length = Duration.between(appointment.getStartTime(), appointment.getEndTime());
+        if (length.compareTo(longest) > 0) {
+            longest = length;
+        }
+        size++;
+    }
+
+    public void remove(Appointment appointment) {
+        List<Appointment> sameStart = byStart.get(appointment.getStartTime());
+        if (sameStart != null && sameStart.remove(appointment)) {
+            if (sameStart.isEmpty()) {
+                byStart.remove(appointment.getStartTime());
+            }
+            size--;
+        }
+    }
+
+    public boolean contains(Appointment appointment) {
+        List<Appointment> sameStart = byStart.get(appointment.getStartTime());
+        return sameStart != null && sameStart.contains(appointment);
+    }
+
+    // True if any indexed appointment satisfies start < end && finish > start
+    public boolean overlaps(LocalDateTime start, LocalDateTime end) {
+        return overlaps(start, end, null);
+    }
+
+    // As above, ignoring 'exclude', e.g. the appointment being moved
+    public boolean overlaps(LocalDateTime start, LocalDateTime end, Appointment exclude) {
+        for (List<Appointment> sameStart : byStart.subMap(start.minus(longest), false, end, false).values()) {
+            for (Appointment appt : sameStart) {
+                if (appt != exclude && appt.getEndTime().isAfter(start)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+}
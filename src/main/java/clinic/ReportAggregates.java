@@ -0,0 +1,280 @@
+package clinic;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+// Running per-physiotherapist totals for the clinic report. Counts are moved on
+// every status transition, so the report never has to rescan appointments.
+// Archived appointments leave the hot lists for each therapist's compact cold
+// store but keep their counts, so the report still covers the full history.
+// The report itself reads a Snapshot: hot list entries carry the stamps of
+// their adding and removal, and removed ones stay until no snapshot can see them.
+class ReportAggregates {
+    private final Map<Physiotherapist, Tally> tallies = new ConcurrentHashMap<>();
+    // Therapists in the order their first appointment was added
+    private final List<Tally> order = new CopyOnWriteArrayList<>();
+
+    public void added(Appointment appointment) {
+        Tally tally = tallyOf(appointment.getPhysiotherapist());
+        synchronized (tally.lock) {
+            long stamp = Snapshot.beginWrite();
+            try {
+                tally.appointments.add(new Tally.Entry(appointment, stamp));
+            } finally {
+                Snapshot.endWrite(stamp);
+            }
+            tally.live++;
+        }
+        tally.byStatus[appointment.getStatus().ordinal()].increment();
+    }
+
+    public void removed(Appointment appointment) {
+        Tally tally = tallyOf(appointment.getPhysiotherapist());
+        synchronized (tally.lock) {
+            long stamp = Snapshot.beginWrite();
+            try {
+                for (Tally.Entry entry : tally.appointments) {
+                    if (entry.appointment == appointment && entry.removed == Long.MAX_VALUE) {
+                        entry.removed = stamp;
+                        tally.live--;
+                        break;
+                    }
+                }
+            } finally {
+                Snapshot.endWrite(stamp);
+            }
+            tally.purge();
+        }
+        tally.byStatus[appointment.getStatus().ordinal()].decrement();
+    }
+
+    // Moves the appointments, already detached from the system, to their
+    // therapists' cold stores with their current state
+    public void archived(List<Appointment> appointments) {
+        Map<Tally, Set<Appointment>> byTally = new IdentityHashMap<>();
+        for (Appointment appt : appointments) {
+            byTally.computeIfAbsent(tallyOf(appt.getPhysiotherapist()),
+                    k -> Collections.newSetFromMap(new IdentityHashMap<>())).add(appt);
+        }
+        for (Map.Entry<Tally, Set<Appointment>> entry : byTally.entrySet()) {
+            Tally tally = entry.getKey();
+            Set<Appointment> moving = entry.getValue();
+            synchronized (tally.lock) {
+                long stamp = Snapshot.beginWrite();
+                try {
+                    for (Tally.Entry hot : tally.appointments) {
+                        if (hot.removed == Long.MAX_VALUE && moving.contains(hot.appointment)) {
+                            tally.archive.add(hot.appointment);
+                            hot.removed = stamp;
+                            tally.live--;
+                        }
+                    }
+                    tally.batches.add(new long[] {stamp, tally.archive.size()});
+                } finally {
+                    Snapshot.endWrite(stamp);
+                }
+                tally.purge();
+            }
+        }
+    }
+
+    public void transitioned(Appointment appointment, AppointmentStatus oldStatus, AppointmentStatus newStatus) {
+        if (oldStatus != newStatus) {
+            Tally tally = tallyOf(appointment.getPhysiotherapist());
+            tally.byStatus[oldStatus.ordinal()].decrement();
+            tally.byStatus[newStatus.ordinal()].increment();
+        }
+    }
+
+    public long count(Physiotherapist physio, AppointmentStatus status) {
+        Tally tally = tallies.get(physio);
+        return tally == null ? 0 : tally.byStatus[status.ordinal()].sum();
+    }
+
+    public List<Tally> tallies() {
+        return order;
+    }
+
+    private Tally tallyOf(Physiotherapist physio) {
+        Tally tally = tallies.get(physio);
+        if (tally == null) {
+            synchronized (order) {
+                tally = tallies.computeIfAbsent(physio, Tally::new);
+                if (!order.contains(tally)) {
+                    order.add(tally);
+                }
+            }
+        }
+        return tally;
+    }
+
+    static class Tally {
+        private static final int CHUNK = 1024;
+
+        // A hot appointment with the stamps of its adding and removal, so a
+        // snapshot sees it only if it was in the list when the snapshot opened
+        private static final class Entry {
+            final Appointment appointment;
+            final long added;
+            // Long.MAX_VALUE while still in the list
+            long removed = Long.MAX_VALUE;
+
+            Entry(Appointment appointment, long added) {
+                this.appointment = appointment;
+                this.added = added;
+            }
+
+            boolean visibleTo(long stamp) {
+                return added <= stamp && stamp < removed;
+            }
+
+            // Removed before every open snapshot, so none of them can see it
+            boolean stale(long oldestOpen) {
+                return removed != Long.MAX_VALUE && removed <= oldestOpen;
+            }
+        }
+
+        private final Physiotherapist physio;
+        private final LongAdder[] byStatus = new LongAdder[AppointmentStatus.values().length];
+        private final Object lock = new Object();
+        // Hot appointments in the order they were added, including removed ones
+        // an open snapshot may still see; guarded by lock
+        private List<Entry> appointments = new ArrayList<>();
+        // Entries not yet removed; guarded by lock
+        private int live;
+        // Snapshot walks in progress over 'appointments', which must then not
+        // change except by appending; guarded by lock
+        private int readers;
+        // Archived appointments in the order they were added; guarded by lock
+        private final AppointmentStore archive = new ColumnarAppointmentStore(0);
+        // {stamp, archive size after} of each archiving; guarded by lock
+        private final List<long[]> batches = new ArrayList<>();
+
+        Tally(Physiotherapist physio) {
+            this.physio = physio;
+            for (int i = 0; i < byStatus.length; i++) {
+                byStatus[i] = new LongAdder();
+            }
+        }
+
+        public Physiotherapist getPhysiotherapist() {
+            return physio;
+        }
+
+        public long count(AppointmentStatus status) {
+            return byStatus[status.ordinal()].sum();
+        }
+
+        // Copy of this therapist's hot appointments in the order they were added
+        public List<Appointment> appointments() {
+            synchronized (lock) {
+                List<Appointment> copy = new ArrayList<>(live);
+                for (Entry entry : appointments) {
+                    if (entry.removed == Long.MAX_VALUE) {
+                        copy.add(entry.appointment);
+                    }
+                }
+                return copy;
+            }
+        }
+
+        // Views of the archived appointments, oldest archived first
+        public List<Appointment> archived() {
+            synchronized (lock) {
+                List<Appointment> views = new ArrayList<>(archive.size());
+                for (int row = 0; row < archive.size(); row++) {
+                    views.add(archive.get(row));
+                }
+                return views;
+            }
+        }
+
+        public boolean isEmpty() {
+            synchronized (lock) {
+                return live == 0 && archive.size() == 0;
+            }
+        }
+
+        // Visits the appointments as the snapshot sees them: the archived ones
+        // and then the hot ones, each in the order they were added. Copies a
+        // bounded chunk at a time so slow consumers such as report sinks never
+        // hold the lock. All appointments passed are detached copies or views.
+        public void forEach(Snapshot snapshot, Consumer<Appointment> action) {
+            List<Entry> hot;
+            int hotSize;
+            int archivedRows = 0;
+            synchronized (lock) {
+                hot = appointments;
+                hotSize = hot.size();
+                for (long[] batch : batches) {
+                    if (batch[0] > snapshot.stamp()) {
+                        break;
+                    }
+                    archivedRows = (int) batch[1];
+                }
+                readers++;
+            }
+            try {
+                Object[] chunk = new Object[CHUNK];
+                int total = archivedRows + hotSize;
+                for (int from = 0; from < total; from += CHUNK) {
+                    int n = Math.min(CHUNK, total - from);
+                    synchronized (lock) {
+                        for (int i = 0; i < n; i++) {
+                            int at = from + i;
+                            chunk[i] = at < archivedRows ? archive.get(at) : hot.get(at - archivedRows);
+                        }
+                    }
+                    for (int i = 0; i < n; i++) {
+                        if (chunk[i] instanceof Entry entry) {
+                            Appointment seen = entry.visibleTo(snapshot.stamp())
+                                    ? entry.appointment.asOf(snapshot) : null;
+                            if (seen != null) {
+                                action.accept(seen);
+                            }
+                        } else {
+                            // Archive views already hold the state at archiving time
+                            action.accept((Appointment) chunk[i]);
+                        }
+                    }
+                }
+            } finally {
+                synchronized (lock) {
+                    readers--;
+                    purge();
+                }
+            }
+        }
+
+        // Drops the removed entries no open snapshot can see, copying the list
+        // first if a snapshot walk may be reading it; caller holds lock
+        private void purge() {
+            if (appointments.size() == live) {
+                return;
+            }
+            long oldest = Snapshot.oldestOpen();
+            boolean stale = false;
+            for (Entry entry : appointments) {
+                if (entry.stale(oldest)) {
+                    stale = true;
+                    break;
+                }
+            }
+            if (!stale) {
+                return;
+            }
+            if (readers > 0) {
+                appointments = new ArrayList<>(appointments);
+            }
+            appointments.removeIf(entry -> entry.stale(oldest));
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package clinic;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.format.DateTimeFormatter;
+
+// Streams the clinic report to any Writer one row at a time, so memory use does
+// not grow with the number of appointments. Each Format renders the same rows.
+abstract class ReportWriter {
+    static final DateTimeFormatter DISPLAY_TIME = DateTimeFormatter.ofPattern("EEE dd MMM yyyy, HH:mm");
+    static final DateTimeFormatter ISO_TIME = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    enum Format {
+        TEXT, CSV, JSON_LINES
+    }
+
+    protected final Writer out;
+
+    protected ReportWriter(Writer out) {
+        this.out = out;
+    }
+
+    public static ReportWriter create(Format format, Writer out) {
+        switch (format) {
+            case CSV:
+                return new CsvReportWriter(out);
+            case JSON_LINES:
+                return new JsonLinesReportWriter(out);
+            default:
+                return new TextReportWriter(out);
+        }
+    }
+
+    public void begin() throws IOException {}
+
+    public void therapist(Physiotherapist physio) throws IOException {}
+
+    public abstract void appointment(Physiotherapist physio, Appointment appt) throws IOException;
+
+    public void rankingHeader() throws IOException {}
+
+    public abstract void ranking(Physiotherapist physio, int attended) throws IOException;
+
+    protected static String patientName(Appointment appt) {
+        Patient patient = appt.getPatient();
+        return patient != null ? patient.getName() : "None";
+    }
+
+    // The original console layout
+    static class TextReportWriter extends ReportWriter {
+        private static final String NL = System.lineSeparator();
+
+        TextReportWriter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        public void begin() throws IOException {
+            out.write(NL + "=== Boost Physio Clinic Report ===" + NL);
+            out.write("=== Appointment Summary ===" + NL);
+        }
+
+        @Override
+        public void therapist(Physiotherapist physio) throws IOException {
+            out.write(NL + "Physiotherapist: " + physio.getName() + NL);
+            out.write("Expertise: " + physio.getExpertiseString() + NL);
+        }
+
+        @Override
+        public void appointment(Physiotherapist physio, Appointment appt) throws IOException {
+            out.write("- ");
+            DISPLAY_TIME.formatTo(appt.getStartTime(), out);
+            out.write(": " + appt.getTreatmentName() + " (" + patientName(appt) + ") - Status: " + appt.getStatus() + "\n");
+        }
+
+        @Override
+        public void rankingHeader() throws IOException {
+            out.write(NL + "=== Physiotherapist Ranking by Attended Appointments ===" + NL);
+        }
+
+        @Override
+        public void ranking(Physiotherapist physio, int attended) throws IOException {
+            out.write(physio.getName() + ": " + attended + " attended appointments\n");
+        }
+    }
+
+    // One table; appointment rows leave 'attended' empty, ranking rows leave the slot columns empty
+    static class CsvReportWriter extends ReportWriter {
+        CsvReportWriter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        public void begin() throws IOException {
+            out.write("record,physiotherapist,booking_id,start,end,treatment,patient,status,attended\n");
+        }
+
+        @Override
+        public void appointment(Physiotherapist physio, Appointment appt) throws IOException {
+            out.write("appointment,");
+            field(physio.getName());
+            out.write(',');
+            out.write(Integer.toString(appt.getBookingId()));
+            out.write(',');
+            ISO_TIME.formatTo(appt.getStartTime(), out);
+            out.write(',');
+            ISO_TIME.formatTo(appt.getEndTime(), out);
+            out.write(',');
+            field(appt.getTreatmentName());
+            out.write(',');
+            field(appt.getPatient() != null ? appt.getPatient().getName() : "");
+            out.write(',');
+            out.write(appt.getStatus().name());
+            out.write(",\n");
+        }
+
+        @Override
+        public void ranking(Physiotherapist physio, int attended) throws IOException {
+            out.write("ranking,");
+            field(physio.getName());
+            out.write(",,,,,,," + attended + "\n");
+        }
+
+        private void field(String value) throws IOException {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+                out.write(value);
+            } else {
+                out.write('"');
+                out.write(value.replace("\"", "\"\""));
+                out.write('"');
+            }
+        }
+    }
+
+    // One JSON object per line
+    static class JsonLinesReportWriter extends ReportWriter {
+        JsonLinesReportWriter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        public void appointment(Physiotherapist physio, Appointment appt) throws IOException {
+            out.write("{\"type\":\"appointment\",\"physiotherapist\":");
+            string(physio.getName());
+            out.write(",\"bookingId\":" + appt.getBookingId() + ",\"start\":\"");
+            ISO_TIME.formatTo(appt.getStartTime(), out);
+            out.write("\",\"end\":\"");
+            ISO_TIME.formatTo(appt.getEndTime(), out);
+            out.write("\",\"treatment\":");
+            string(appt.getTreatmentName());
+            out.write(",\"patient\":");
+            if (appt.getPatient() != null) {
+                string(appt.getPatient().getName());
+            } else {
+                out.write("null");
+            }
+            out.write(",\"status\":\"" + appt.getStatus() + "\"}\n");
+        }
+
+        @Override
+        public void ranking(Physiotherapist physio, int attended) throws IOException {
+            out.write("{\"type\":\"ranking\",\"physiotherapist\":");
+            string(physio.getName());
+            out.write(",\"attended\":" + attended + "}\n");
+        }
+
+        private void string(String value) throws IOException {
+            out.write('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    out.write('\\');
+                    out.write(c);
+                } else if (c < 0x20) {
+                    out.write(String.format("\\u%04x", (int) c));
+                } else {
+                    out.write(c);
+                }
+            }
+            out.write('"');
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package clinic;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Bounded LRU cache of availability search results. Each therapist carries a
+// version stamp that is bumped whenever one of their appointments is added,
+// removed or changes state; an entry remembers the stamps of the therapists
+// it matched and is only served while all of them, the roster version and the
+// day it was computed are unchanged.
+class SearchCache {
+    enum Kind { EXPERTISE, PHYSIOTHERAPIST, PHYSIOTHERAPIST_PREFIX }
+
+    // The normalized query; term is case-folded where the search ignores case
+    record Key(Kind kind, String term, LocalDateTime from, int limit) {}
+
+    private record Entry(LocalDate day, long roster, Physiotherapist[] therapists, long[] versions,
+                         List<Appointment> result) {}
+
+    private final Map<Physiotherapist, AtomicLong> versions = new ConcurrentHashMap<>();
+    private final AtomicLong roster = new AtomicLong();
+    private final Map<Key, Entry> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public SearchCache(int capacity) {
+        entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    // Called after the therapist's open slots have been updated
+    public void invalidate(Physiotherapist physio) {
+        versionOf(physio).incrementAndGet();
+    }
+
+    // Called when the set of therapists, or what they offer, changes
+    public void invalidateAll() {
+        roster.incrementAndGet();
+    }
+
+    public long version(Physiotherapist physio) {
+        return versionOf(physio).get();
+    }
+
+    // Roster stamp to capture before choosing which therapists a search matches
+    public long rosterVersion() {
+        return roster.get() + Physiotherapist.profileChanges();
+    }
+
+    // The cached result, or null if there is none or it is out of date
+    public List<Appointment> get(Key key, LocalDate today) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry != null && isCurrent(entry, today)) {
+            hits.increment();
+            return entry.result();
+        }
+        misses.increment();
+        return null;
+    }
+
+    // 'versions' must have been read, in order of 'therapists', before the
+    // search that produced 'result' looked at the open slots
+    public void put(Key key, LocalDate today, long rosterVersion, Physiotherapist[] therapists,
+                    long[] versions, List<Appointment> result) {
+        Entry entry = new Entry(today, rosterVersion, therapists, versions, List.copyOf(result));
+        synchronized (entries) {
+            entries.put(key, entry);
+        }
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public double hitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    // Plain-text counters in the BookingMetrics.snapshot format
+    public String snapshot() {
+        return String.format("search_cache.hits %d\nsearch_cache.misses %d\nsearch_cache.hit_rate %.3f\n",
+                hits(), misses(), hitRate());
+    }
+
+    private boolean isCurrent(Entry entry, LocalDate today) {
+        if (!entry.day().equals(today) || entry.roster() != rosterVersion()) {
+            return false;
+        }
+        for (int i = 0; i < entry.therapists().length; i++) {
+            if (version(entry.therapists()[i]) != entry.versions()[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private AtomicLong versionOf(Physiotherapist physio) {
+        return versions.computeIfAbsent(physio, k -> new AtomicLong());
+    }
+}
@@ -0,0 +1,117 @@
+package clinic;
+
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+// A point-in-time view for multi-version reads. Every appointment write is
+// stamped with the current value of a process-wide clock; opening a snapshot
+// takes that value and moves the clock on, so later writes are stamped after
+// it and stay invisible to it. A write takes its stamp and lands between
+// beginWrite and endWrite, and opening waits for the writes still holding
+// the snapshot's stamp, so each write is wholly before or after it. Writers
+// never wait, and an appointment keeps the versions it replaces only while
+// an open snapshot may still read them. Close snapshots promptly for that reason.
+final class Snapshot implements AutoCloseable {
+    private static final AtomicLong clock = new AtomicLong(1);
+    // Stamps of the open snapshots, with how many are open at each; guarded by itself
+    private static final TreeMap<Long, Integer> open = new TreeMap<>();
+    private static volatile long oldestOpen = Long.MAX_VALUE;
+    // Writes in progress by parity of their stamp, counted per stripe of
+    // writer threads with the stripes a cache line apart
+    private static final int STRIPES = 16;
+    private static final int PAD = 8;
+    private static final AtomicLongArray writing = new AtomicLongArray(2 * STRIPES * PAD);
+
+    private final long stamp;
+    private boolean closed;
+
+    private Snapshot(long stamp) {
+        this.stamp = stamp;
+    }
+
+    // Registered before the clock moves on, so any write stamped after this
+    // snapshot also sees it as open and keeps what it replaces. Opens are
+    // serialized and each moves the clock by one, so the writes counted under
+    // the stamp's parity are the ones holding the stamp itself.
+    public static Snapshot open() {
+        synchronized (open) {
+            long stamp = clock.get();
+            open.merge(stamp, 1, Integer::sum);
+            oldestOpen = open.firstKey();
+            clock.incrementAndGet();
+            int spins = 0;
+            while (writing(stamp)) {
+                if (++spins > 100) {
+                    LockSupport.parkNanos(1_000);
+                } else {
+                    Thread.onSpinWait();
+                }
+            }
+            return new Snapshot(stamp);
+        }
+    }
+
+    // Sees every write stamped at or before this
+    public long stamp() {
+        return stamp;
+    }
+
+    @Override
+    public void close() {
+        synchronized (open) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            open.computeIfPresent(stamp, (k, n) -> n == 1 ? null : n - 1);
+            oldestOpen = open.isEmpty() ? Long.MAX_VALUE : open.firstKey();
+        }
+    }
+
+    // Stamp for an object no other thread can see yet
+    static long now() {
+        return clock.get();
+    }
+
+    // Stamp for a write to shared state, which must be followed by
+    // endWrite(stamp) on the same thread once the write is visible. The clock
+    // is read again after the write is counted: if it has moved on, a
+    // snapshot may already have stopped waiting, so the write takes a newer stamp.
+    static long beginWrite() {
+        while (true) {
+            long stamp = clock.get();
+            int slot = slot(stamp);
+            writing.getAndIncrement(slot);
+            if (clock.get() == stamp) {
+                return stamp;
+            }
+            writing.getAndDecrement(slot);
+        }
+    }
+
+    static void endWrite(long stamp) {
+        writing.getAndDecrement(slot(stamp));
+    }
+
+    private static int slot(long stamp) {
+        int stripe = (int) Thread.currentThread().getId() & (STRIPES - 1);
+        return (((int) stamp & 1) * STRIPES + stripe) * PAD;
+    }
+
+    private static boolean writing(long stamp) {
+        int first = ((int) stamp & 1) * STRIPES * PAD;
+        for (int i = 0; i < STRIPES; i++) {
+            if (writing.get(first + i * PAD) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Stamp of the oldest open snapshot, or Long.MAX_VALUE if there is none
+    static long oldestOpen() {
+        return oldestOpen;
+    }
+}
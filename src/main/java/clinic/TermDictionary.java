@@ -0,0 +1,60 @@
+package clinic;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Process-wide dictionary giving every treatment and expertise name a small,
+// dense int code. Therapists keep their expertise as a bitset over these codes
+// and appointments keep a code instead of their own copy of the name. Codes
+// are never reused and are not stable across runs, so anything persisted
+// stores the names. A clinic's vocabulary is small, so nothing is evicted.
+final class TermDictionary {
+    static final int NONE = -1;
+
+    private static final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    // Indexed by code; a name is stored before its code is published in 'codes'
+    private static volatile String[] names = new String[16];
+    private static int size;
+
+    private TermDictionary() {
+    }
+
+    // The name's code, assigning the next free one the first time; NONE for null
+    static int intern(String name) {
+        if (name == null) {
+            return NONE;
+        }
+        Integer code = codes.get(name);
+        return code != null ? code : assign(name);
+    }
+
+    // The name's code, or NONE if it has never been interned
+    static int find(String name) {
+        Integer code = name == null ? null : codes.get(name);
+        return code != null ? code : NONE;
+    }
+
+    static String name(int code) {
+        return code == NONE ? null : names[code];
+    }
+
+    static int size() {
+        return codes.size();
+    }
+
+    private static synchronized int assign(String name) {
+        Integer existing = codes.get(name);
+        if (existing != null) {
+            return existing;
+        }
+        String[] current = names;
+        if (size == current.length) {
+            current = Arrays.copyOf(current, size * 2);
+        }
+        current[size] = name;
+        names = current;
+        codes.put(name, size);
+        return size++;
+    }
+}
@@ -0,0 +1,368 @@
+package clinic;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+enum AppointmentStatus {
+    AVAILABLE, BOOKED, CANCELLED, ATTENDED
+}
+
+// Outcome of a booking attempt made through BookingSystem. NOT_FOUND and
+// ABORTED only come from batch bookings: ABORTED marks a slot that was fine
+// but was released because another slot in the same batch failed.
+enum BookingResult {
+    BOOKED, SLOT_UNAVAILABLE, TIME_CONFLICT, NOT_FOUND, ABORTED
+}
+
+// Callback fired after an appointment changes status or patient, so the
+// owning BookingSystem can keep its indexes up to date. Each call carries the
+// exact before/after pair of one atomic transition.
+interface AppointmentListener {
+    void appointmentChanged(Appointment appointment, Appointment.State oldState, Appointment.State newState);
+}
+
+// Callback fired after an availability rule is added to a physiotherapist, so
+// the owning BookingSystem can record it and open its slots. 'index' is the
+// rule's position in the therapist's list.
+interface AvailabilityListener {
+    void availabilityRuleAdded(Physiotherapist physio, int index, AvailabilityRule rule);
+}
+
+// Person base class
+abstract class Person {
+    private int id;
+    private String name;
+    private String address;
+    private String telephone;
+
+    public Person(int id, String name, String address, String telephone) {
+        this.id = id;
+        this.name = name;
+        this.address = address;
+        this.telephone = telephone;
+    }
+
+    // Getters
+    public int getId() { return id; }
+    public String getName() { return name; }
+    public String getAddress() { return address; }
+    public String getTelephone() { return telephone; }
+}
+
+// Patient class
+class Patient extends Person {
+    public Patient(int id, String name, String address, String telephone) {
+        super(id, name, address, telephone);
+    }
+}
+
+// Physiotherapist class
+class Physiotherapist extends Person {
+    // Bumped by every expertise or availability change, so cached searches can
+    // tell that which therapists match a query may have changed
+    private static final AtomicLong PROFILE_CHANGES = new AtomicLong();
+
+    // Expertise as TermDictionary codes in the order added, and as a bitset over
+    // the same codes for one-bit membership tests. Both are replaced on change.
+    private volatile int[] expertiseCodes = new int[0];
+    private volatile long[] expertiseBits = new long[0];
+    private List<AvailabilityRule> availabilityRules = new CopyOnWriteArrayList<>();
+    private volatile AvailabilityListener listener;
+
+    public Physiotherapist(int id, String name, String address, String telephone) {
+        super(id, name, address, telephone);
+    }
+
+    public synchronized void addExpertise(String expertise) {
+        int code = TermDictionary.intern(Objects.requireNonNull(expertise, "expertise"));
+        if (!hasExpertise(code)) {
+            int[] codes = Arrays.copyOf(expertiseCodes, expertiseCodes.length + 1);
+            codes[codes.length - 1] = code;
+            long[] bits = Arrays.copyOf(expertiseBits, Math.max(expertiseBits.length, (code >> 6) + 1));
+            bits[code >> 6] |= 1L << code;
+            expertiseCodes = codes;
+            expertiseBits = bits;
+            PROFILE_CHANGES.incrementAndGet();
+        }
+    }
+
+    public boolean hasExpertise(String expertise) {
+        return hasExpertise(TermDictionary.find(expertise));
+    }
+
+    // For hot loops: look the code up once with TermDictionary.find
+    public boolean hasExpertise(int code) {
+        long[] bits = expertiseBits;
+        return code >= 0 && (code >> 6) < bits.length && (bits[code >> 6] & 1L << code) != 0;
+    }
+
+    // The codes in the order added. The array is replaced, never changed, on
+    // every addition, so callers must not modify it and may compare it by identity.
+    int[] expertiseCodes() {
+        return expertiseCodes;
+    }
+
+    public List<String> getExpertiseAreas() {
+        int[] codes = expertiseCodes;
+        List<String> areas = new ArrayList<>(codes.length);
+        for (int code : codes) {
+            areas.add(TermDictionary.name(code));
+        }
+        return Collections.unmodifiableList(areas);
+    }
+
+    public String getExpertiseString() {
+        return String.join(", ", getExpertiseAreas());
+    }
+
+    public void addAvailabilityRule(AvailabilityRule rule) {
+        int index;
+        synchronized (this) {
+            index = availabilityRules.size();
+            availabilityRules.add(rule);
+        }
+        PROFILE_CHANGES.incrementAndGet();
+        AvailabilityListener listener = this.listener;
+        if (listener != null) {
+            listener.availabilityRuleAdded(this, index, rule);
+        }
+    }
+
+    // Used when rebuilding state from a journal or snapshot: adds the rule
+    // unless the list already has one at 'index', and tells no listener
+    synchronized void restoreAvailabilityRule(int index, AvailabilityRule rule) {
+        if (availabilityRules.size() <= index) {
+            availabilityRules.add(rule);
+            PROFILE_CHANGES.incrementAndGet();
+        }
+    }
+
+    void setListener(AvailabilityListener listener) { this.listener = listener; }
+
+    public List<AvailabilityRule> getAvailabilityRules() {
+        return Collections.unmodifiableList(availabilityRules);
+    }
+
+    static long profileChanges() {
+        return PROFILE_CHANGES.get();
+    }
+}
+
+// Recurring weekly availability: back-to-back slots of one treatment filling a
+// time window on one weekday
+class AvailabilityRule {
+    private final DayOfWeek day;
+    private final LocalTime windowStart;
+    private final LocalTime windowEnd;
+    private final Duration slotLength;
+    private final String treatmentName;
+
+    public AvailabilityRule(DayOfWeek day, LocalTime windowStart, LocalTime windowEnd,
+                            Duration slotLength, String treatmentName) {
+        if (slotLength.isZero() || slotLength.isNegative()) {
+            throw new IllegalArgumentException("Slot length must be positive");
+        }
+        this.day = day;
+        this.windowStart = windowStart;
+        this.windowEnd = windowEnd;
+        this.slotLength = slotLength;
+        this.treatmentName = treatmentName;
+    }
+
+    // Getters
+    public DayOfWeek getDay() { return day; }
+    public LocalTime getWindowStart() { return windowStart; }
+    public LocalTime getWindowEnd() { return windowEnd; }
+    public Duration getSlotLength() { return slotLength; }
+    public String getTreatmentName() { return treatmentName; }
+
+    // Start times of the slots this rule opens on the given date, if any
+    public List<LocalDateTime> slotStartsOn(LocalDate date) {
+        List<LocalDateTime> starts = new ArrayList<>();
+        if (date.getDayOfWeek() != day) {
+            return starts;
+        }
+        LocalDateTime end = date.atTime(windowEnd);
+        for (LocalDateTime start = date.atTime(windowStart); !start.plus(slotLength).isAfter(end);
+             start = start.plus(slotLength)) {
+            starts.add(start);
+        }
+        return starts;
+    }
+}
+
+// Appointment class
+class Appointment {
+    // Status and patient change together, so they live in one immutable record
+    // swapped atomically; a slot can only be claimed from AVAILABLE once
+    record State(AppointmentStatus status, Patient patient) {}
+
+    // Start and end move together when a booking is rescheduled
+    private record Period(LocalDateTime start, LocalDateTime end) {}
+
+    // One version of everything that can change, swapped atomically. Each is
+    // stamped with the Snapshot clock and links to the version it replaced
+    // while an open snapshot may still need that one.
+    private record Revision(State state, Period period, long stamp, Revision previous) {}
+
+    private int bookingId;
+    // TermDictionary code of the treatment name
+    private int treatment;
+    private Physiotherapist physiotherapist;
+    private final AtomicReference<Revision> head;
+    private volatile AppointmentListener listener;
+
+    public Appointment(int bookingId, LocalDateTime startTime, LocalDateTime endTime,
+                       String treatmentName, Physiotherapist physiotherapist,
+                       Patient patient, AppointmentStatus status) {
+        this(bookingId, TermDictionary.intern(treatmentName), physiotherapist,
+                new Revision(new State(status, patient), new Period(startTime, endTime), Snapshot.now(), null));
+    }
+
+    private Appointment(int bookingId, int treatment, Physiotherapist physiotherapist, Revision revision) {
+        this.bookingId = bookingId;
+        this.treatment = treatment;
+        this.physiotherapist = physiotherapist;
+        this.head = new AtomicReference<>(revision);
+    }
+
+    // Getters
+    public int getBookingId() { return bookingId; }
+    public LocalDateTime getStartTime() { return head.get().period().start(); }
+    public LocalDateTime getEndTime() { return head.get().period().end(); }
+    public String getTreatmentName() { return TermDictionary.name(treatment); }
+    int getTreatmentCode() { return treatment; }
+    public Physiotherapist getPhysiotherapist() { return physiotherapist; }
+    public Patient getPatient() { return head.get().state().patient(); }
+    public AppointmentStatus getStatus() { return head.get().state().status(); }
+    State getState() { return head.get().state(); }
+
+    void setListener(AppointmentListener listener) { this.listener = listener; }
+
+    // The appointment as the snapshot sees it: a detached copy, or null if it
+    // did not exist yet when the snapshot was opened
+    Appointment asOf(Snapshot snapshot) {
+        Revision revision = head.get();
+        while (revision != null && revision.stamp() > snapshot.stamp()) {
+            revision = revision.previous();
+        }
+        return revision == null ? null : new Appointment(bookingId, treatment, physiotherapist,
+                new Revision(revision.state(), revision.period(), revision.stamp(), null));
+    }
+
+    // Business methods
+    public void bookAppointment(Patient patient) {
+        State newState = new State(AppointmentStatus.BOOKED, patient);
+        fireChanged(swapState(newState), newState);
+    }
+
+    // Books the slot only if it is still AVAILABLE; false if another booking got there first
+    public boolean claim(Patient patient) {
+        State newState = new State(AppointmentStatus.BOOKED, patient);
+        State oldState = write(state -> state.status() == AppointmentStatus.AVAILABLE, state -> newState, null);
+        if (oldState == null) {
+            return false;
+        }
+        fireChanged(oldState, newState);
+        return true;
+    }
+
+    // Undoes claim(patient): back to AVAILABLE only while the slot is still
+    // booked by that patient, so a cancel or attend that got in first stays
+    boolean release(Patient patient) {
+        State newState = new State(AppointmentStatus.AVAILABLE, null);
+        State oldState = write(state -> state.status() == AppointmentStatus.BOOKED && state.patient() == patient,
+                state -> newState, null);
+        if (oldState == null) {
+            return false;
+        }
+        fireChanged(oldState, newState);
+        return true;
+    }
+
+    public void cancelAppointment() {
+        State newState = new State(AppointmentStatus.CANCELLED, null);
+        fireChanged(swapState(newState), newState);
+    }
+
+    public void attendAppointment() {
+        State oldState = write(state -> state.status() == AppointmentStatus.BOOKED,
+                state -> new State(AppointmentStatus.ATTENDED, state.patient()), null);
+        if (oldState != null) {
+            fireChanged(oldState, new State(AppointmentStatus.ATTENDED, oldState.patient()));
+        }
+    }
+
+    // Only BookingSystem may call this, having taken the appointment out of
+    // every index ordered by time
+    void moveTo(LocalDateTime startTime, LocalDateTime endTime) {
+        write(state -> true, state -> state, new Period(startTime, endTime));
+    }
+
+    // Used when rebuilding state from a journal or snapshot
+    void restoreState(State newState) {
+        fireChanged(swapState(newState), newState);
+    }
+
+    // Replaces the state whatever it was and returns the old one
+    private State swapState(State newState) {
+        return write(state -> true, state -> newState, null);
+    }
+
+    // One stamped write: while 'when' accepts the current state, swaps in a
+    // revision with next(state) and 'period' (null keeps the current one).
+    // Returns the state replaced, or null if 'when' refused it. Callers tell
+    // the listener afterwards, outside the write.
+    private State write(Predicate<State> when, UnaryOperator<State> next, Period period) {
+        long stamp = Snapshot.beginWrite();
+        try {
+            Revision current = head.get();
+            while (when.test(current.state())) {
+                Revision revision = revise(current, next.apply(current.state()),
+                        period != null ? period : current.period(), stamp);
+                if (head.compareAndSet(current, revision)) {
+                    return current.state();
+                }
+                current = head.get();
+            }
+            return null;
+        } finally {
+            Snapshot.endWrite(stamp);
+        }
+    }
+
+    // The revision to replace 'current' with. The stamp is taken before the
+    // oldest open snapshot is read, so a snapshot opened in between is seen as
+    // open. 'current' is kept only if an open snapshot predates this write,
+    // and its own history only if a snapshot predates that too.
+    private static Revision revise(Revision current, State state, Period period, long stamp) {
+        long oldest = Snapshot.oldestOpen();
+        Revision previous = null;
+        if (oldest < stamp) {
+            previous = current.stamp() <= oldest && current.previous() != null
+                    ? new Revision(current.state(), current.period(), current.stamp(), null)
+                    : current;
+        }
+        return new Revision(state, period, stamp, previous);
+    }
+
+    void fireChanged(State oldState, State newState) {
+        AppointmentListener listener = this.listener;
+        if (listener != null) {
+            listener.appointmentChanged(this, oldState, newState);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,72 @@
+package clinic;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import java.time.LocalDateTime;
+
+public class AppointmentStoreTest {
+    private Physiotherapist physio;
+    private Patient patient;
+    private LocalDateTime start;
+
+    @BeforeEach
+    void setUp() {
+        physio = new Physiotherapist(1, "Dr. Test", "Clinic Road", "123-4567");
+        patient = new Patient(101, "Test Patient", "Patient Street", "987-6543");
+        start = LocalDateTime.of(2030, 3, 4, 10, 15);
+    }
+
+    @Test
+    void testColumnarRoundTrip() {
+        ColumnarAppointmentStore store = new ColumnarAppointmentStore(1);
+        for (int i = 0; i < 100; i++) {
+            store.add(new Appointment(i + 1, start.plusHours(i), start.plusHours(i + 1), "Massage",
+                    physio, i % 2 == 0 ? patient : null,
+                    i % 2 == 0 ? AppointmentStatus.BOOKED : AppointmentStatus.AVAILABLE));
+        }
+
+        Appointment view = store.get(41);
+        assertEquals(100, store.size());
+        assertEquals(42, view.getBookingId());
+        assertEquals(start.plusHours(41), view.getStartTime());
+        assertEquals(start.plusHours(42), view.getEndTime());
+        assertEquals("Massage", view.getTreatmentName());
+        assertSame(physio, view.getPhysiotherapist());
+        assertNull(view.getPatient());
+        assertSame(patient, store.get(40).getPatient());
+    }
+
+    @Test
+    void testColumnarTransitionsWriteBack() {
+        ColumnarAppointmentStore store = new ColumnarAppointmentStore();
+        int row = store.add(new Appointment(1, start, start.plusHours(1), "Massage",
+                physio, null, AppointmentStatus.AVAILABLE));
+
+        assertTrue(store.claim(row, patient));
+        assertFalse(store.claim(row, patient));
+        assertSame(patient, store.get(row).getPatient());
+
+        store.get(row).attendAppointment();
+        assertEquals(AppointmentStatus.ATTENDED, store.getStatus(row));
+    }
+
+    @Test
+    void testColumnarViewsOfOneRowShareItsState() {
+        ColumnarAppointmentStore store = new ColumnarAppointmentStore();
+        int row = store.add(new Appointment(1, start, start.plusHours(1), "Massage",
+                physio, null, AppointmentStatus.AVAILABLE));
+        Patient other = new Patient(102, "Other Patient", "Other Street", "555-0000");
+        Appointment first = store.get(row);
+        Appointment second = store.get(row);
+
+        assertTrue(first.claim(patient));
+        assertFalse(second.claim(other));
+        assertFalse(store.claim(row, other));
+        assertEquals(AppointmentStatus.BOOKED, second.getStatus());
+        assertSame(patient, second.getPatient());
+
+        second.cancelAppointment();
+        assertEquals(AppointmentStatus.CANCELLED, first.getStatus());
+        assertNull(first.getPatient());
+    }
+}
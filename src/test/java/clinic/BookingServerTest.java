@@ -0,0 +1,77 @@
+package clinic;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+
+public class BookingServerTest {
+    private BookingSystem system;
+    private BookingServer server;
+    private HttpClient http;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        system = new BookingSystem();
+        Physiotherapist physio = new Physiotherapist(1, "Dr. Test", "Clinic Road", "123-4567");
+        physio.addExpertise("Physiotherapy");
+        system.getPhysiotherapists().add(physio);
+        system.getPatients().add(new Patient(101, "Test Patient", "Patient Street", "987-6543"));
+        system.getPatients().add(new Patient(102, "Other Patient", "Patient Street", "987-0000"));
+
+        LocalDateTime base = LocalDateTime.of(2030, 1, 7, 9, 0);
+        for (int i = 0; i < 3; i++) {
+            system.getAppointments().add(new Appointment(i + 1, base.plusHours(i), base.plusHours(i + 1),
+                    "Physiotherapy", physio, null, AppointmentStatus.AVAILABLE));
+        }
+        server = new BookingServer(system);
+        server.start(0);
+        http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        server.stop();
+    }
+
+    private HttpResponse<String> call(String method, String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path))
+                .method(method, HttpRequest.BodyPublishers.noBody()).build();
+        return http.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void testBookingFlow() throws Exception {
+        HttpResponse<String> search = call("GET", "/appointments?expertise=Physiotherapy&from=2030-01-07T10:00");
+        assertEquals(200, search.statusCode());
+        assertFalse(search.body().contains("\"bookingId\":1,"), search.body());
+        assertTrue(search.body().contains("\"bookingId\":2,"), search.body());
+
+        assertEquals(200, call("POST", "/appointments/2/book?patient=101").statusCode());
+        HttpResponse<String> again = call("POST", "/appointments/2/book?patient=102");
+        assertEquals(409, again.statusCode());
+        assertEquals("{\"result\":\"SLOT_UNAVAILABLE\"}", again.body());
+        assertEquals(AppointmentStatus.BOOKED, system.getAppointmentById(2).getStatus());
+
+        assertEquals(200, call("POST", "/appointments/2/attend").statusCode());
+        assertTrue(call("GET", "/appointments/2").body().contains("\"status\":\"ATTENDED\""));
+        assertTrue(call("GET", "/report").body().contains("\"attended\":1"));
+        assertTrue(call("GET", "/patients?prefix=oth").body().contains("\"name\":\"Other Patient\""));
+    }
+
+    @Test
+    void testErrors() throws Exception {
+        assertEquals(404, call("GET", "/appointments/99").statusCode());
+        assertEquals(404, call("POST", "/appointments/1/book?patient=999").statusCode());
+        assertEquals(400, call("GET", "/appointments/abc").statusCode());
+        assertEquals(400, call("GET", "/appointments").statusCode());
+        assertEquals(405, call("DELETE", "/appointments/1").statusCode());
+
+        assertEquals(201, call("POST", "/patients?id=103&name=New+Patient").statusCode());
+        assertEquals("New Patient", system.getPatientById(103).getName());
+        assertEquals(409, call("POST", "/patients?id=103&name=Duplicate").statusCode());
+    }
+}
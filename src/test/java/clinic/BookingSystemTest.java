@@ -0,0 +1,835 @@
+package clinic;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.BufferedWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+public class BookingSystemTest {
+    private BookingSystem system;
+    private Physiotherapist physio;
+    private Patient patient;
+
+    @BeforeEach
+    void setUp() {
+        system = new BookingSystem();
+
+        // Set up a sample physiotherapist and patient
+        physio = new Physiotherapist(1, "Dr. Test", "Clinic Road", "123-4567");
+        physio.addExpertise("Physiotherapy");
+
+        patient = new Patient(101, "Test Patient", "Patient Street", "987-6543");
+
+        // Add them manually (assumes helper access or public list in BookingSystem)
+        system.getPhysiotherapists().add(physio);
+        system.getPatients().add(patient);
+
+        // Add an available appointment
+        Appointment appt = new Appointment(
+                1,
+                LocalDateTime.now().plusDays(1),
+                LocalDateTime.now().plusDays(1).plusHours(1),
+                "Physiotherapy",
+                physio,
+                null,
+                AppointmentStatus.AVAILABLE
+        );
+        system.getAppointments().add(appt);
+    }
+
+    @Test
+    void testRemovePatientOnlyWithoutBookings() {
+        Appointment appt = system.getAppointmentById(1);
+        assertEquals(BookingResult.BOOKED, system.bookAppointment(patient, appt));
+        assertTrue(system.hasBookedAppointments(patient));
+        assertFalse(system.removePatient(patient));
+        assertSame(patient, system.getPatientById(101));
+
+        system.cancelAppointment(appt);
+        assertFalse(system.hasBookedAppointments(patient));
+        assertTrue(system.removePatient(patient));
+        assertNull(system.getPatientById(101));
+    }
+
+    @Test
+    void testAddAndRetrievePatient() {
+        Patient fetched = system.getPatientById(101);
+        assertNotNull(fetched);
+        assertEquals("Test Patient", fetched.getName());
+    }
+
+    @Test
+    void testBookAppointment() {
+        Appointment appt = system.getAppointments().get(0);
+        appt.bookAppointment(patient);
+
+        assertEquals(AppointmentStatus.BOOKED, appt.getStatus());
+        assertEquals(patient, appt.getPatient());
+    }
+
+    @Test
+    void testCancelAppointment() {
+        Appointment appt = system.getAppointments().get(0);
+        appt.bookAppointment(patient);
+        appt.cancelAppointment();
+
+        assertEquals(AppointmentStatus.CANCELLED, appt.getStatus());
+        assertNull(appt.getPatient());
+    }
+
+    @Test
+    void testAttendAppointment() {
+        Appointment appt = system.getAppointments().get(0);
+        appt.bookAppointment(patient);
+        appt.attendAppointment();
+
+        assertEquals(AppointmentStatus.ATTENDED, appt.getStatus());
+    }
+
+    @Test
+    void testTimeConflictDetection() {
+        Appointment first = system.getAppointments().get(0);
+        first.bookAppointment(patient);
+
+        Appointment overlapping = new Appointment(
+                2,
+                first.getStartTime().plusMinutes(30),
+                first.getEndTime().plusMinutes(30),
+                "Massage",
+                physio,
+                null,
+                AppointmentStatus.AVAILABLE
+        );
+
+        boolean conflict = system.hasTimeConflict(
+                patient,
+                overlapping.getStartTime(),
+                overlapping.getEndTime()
+        );
+
+        assertTrue(conflict);
+    }
+
+    @Test
+    void testCancelledAppointmentDoesNotConflict() {
+        Appointment appt = system.getAppointments().get(0);
+        appt.bookAppointment(patient);
+        appt.cancelAppointment();
+
+        assertFalse(system.hasTimeConflict(patient, appt.getStartTime(), appt.getEndTime()));
+    }
+
+    @Test
+    void testTimeConflictIgnoresAdjacentAndOtherPatients() {
+        Appointment appt = system.getAppointments().get(0);
+        appt.bookAppointment(patient);
+        Patient other = new Patient(102, "Other Patient", "Other Street", "111-2222");
+
+        assertFalse(system.hasTimeConflict(patient, appt.getEndTime(), appt.getEndTime().plusHours(1)));
+        assertFalse(system.hasTimeConflict(patient, appt.getStartTime().minusHours(1), appt.getStartTime()));
+        assertFalse(system.hasTimeConflict(other, appt.getStartTime(), appt.getEndTime()));
+    }
+
+    @Test
+    void testRegistryTracksPatientsAndAppointments() {
+        assertNotNull(system.getAppointmentById(1));
+        assertNull(system.getAppointmentById(2));
+
+        system.getPatients().remove(patient);
+        assertNull(system.getPatientById(101));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> system.getAppointments().add(system.getAppointmentById(1)));
+        assertEquals(1, system.getAppointments().size());
+    }
+
+    @Test
+    void testExpertiseSearchPagesOpenSlotsInTimeOrder() {
+        LocalDateTime base = LocalDateTime.now().plusDays(5);
+        for (int i = 3; i >= 0; i--) {
+            system.getAppointments().add(new Appointment(10 + i, base.plusHours(i), base.plusHours(i + 1),
+                    "Physiotherapy", physio, null, AppointmentStatus.AVAILABLE));
+        }
+        system.getAppointmentById(11).bookAppointment(patient);
+
+        List<Appointment> page = system.getAvailableAppointmentsByExpertise("Physiotherapy", base, 2);
+        assertEquals(List.of(system.getAppointmentById(10), system.getAppointmentById(12)), page);
+        assertEquals(4, system.getAvailableAppointmentsByExpertise("Physiotherapy", null, 10).size());
+        assertTrue(system.getAvailableAppointmentsByExpertise("Osteopathy", null, 10).isEmpty());
+
+        system.getAppointmentById(11).cancelAppointment();
+        assertEquals(3, system.getAvailableAppointmentsByExpertise("Physiotherapy", base, 10).size());
+
+        // Another therapist's open slots join the expertise's set once they gain it
+        Physiotherapist other = new Physiotherapist(2, "Dr. Other", "Clinic Road", "123-0002");
+        other.addExpertise("Osteopathy");
+        system.getPhysiotherapists().add(other);
+        system.getAppointments().add(new Appointment(20, base.plusMinutes(90), base.plusMinutes(150),
+                "Osteopathy", other, null, AppointmentStatus.AVAILABLE));
+        assertEquals(List.of(10, 12), system.getAvailableAppointmentsByExpertise("Physiotherapy", base, 2)
+                .stream().map(Appointment::getBookingId).toList());
+        other.addExpertise("Physiotherapy");
+        assertEquals(List.of(10, 20), system.getAvailableAppointmentsByExpertise("Physiotherapy", base, 2)
+                .stream().map(Appointment::getBookingId).toList());
+        // 12 overlaps the patient's booking of 20
+        system.getAppointmentById(20).bookAppointment(patient);
+        assertEquals(List.of(10, 13), system.findEarliestSlots(patient, "Physiotherapy", base, 5)
+                .stream().map(Appointment::getBookingId).toList());
+    }
+
+    @Test
+    void testEarliestSlotsSkipThePatientsClashes() {
+        Physiotherapist ruled = new Physiotherapist(3, "Dr. Rules", "Clinic Road", "123-3333");
+        ruled.addExpertise("Osteopathy");
+        ruled.addAvailabilityRule(new AvailabilityRule(DayOfWeek.MONDAY, LocalTime.of(9, 0),
+                LocalTime.of(12, 0), Duration.ofMinutes(45), "Osteopathy"));
+        Physiotherapist other = new Physiotherapist(4, "Dr. Other", "Clinic Road", "123-4444");
+        other.addExpertise("Osteopathy");
+        system.getPhysiotherapists().add(ruled);
+        system.getPhysiotherapists().add(other);
+        LocalDate monday = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+        system.getAppointments().add(new Appointment(50, monday.atTime(9, 30), monday.atTime(10, 30),
+                "Osteopathy", other, null, AppointmentStatus.AVAILABLE));
+        system.getAppointments().add(new Appointment(51, monday.atTime(12, 0), monday.atTime(13, 0),
+                "Osteopathy", other, null, AppointmentStatus.AVAILABLE));
+        Appointment existing = new Appointment(40, monday.atTime(9, 15), monday.atTime(10, 15),
+                "Physiotherapy", physio, null, AppointmentStatus.AVAILABLE);
+        system.getAppointments().add(existing);
+        assertEquals(BookingResult.BOOKED, system.bookAppointment(patient, existing));
+
+        // 09:00 and 09:45 with Dr. Rules and 09:30 with Dr. Other overlap the 09:15 booking
+        List<Appointment> earliest = system.findEarliestSlots(patient, "Osteopathy", monday.atStartOfDay(), 3);
+        assertEquals(List.of(monday.atTime(10, 30), monday.atTime(11, 15), monday.atTime(12, 0)),
+                earliest.stream().map(Appointment::getStartTime).toList());
+        assertSame(system.getAppointmentById(51), earliest.get(2));
+
+        // Later weeks are generated only when the first cannot fill the request
+        List<Appointment> more = system.findEarliestSlots(patient, "Osteopathy", monday.atStartOfDay(), 5);
+        assertEquals(monday.plusWeeks(1).atTime(9, 0), more.get(3).getStartTime());
+        assertEquals(monday.plusWeeks(1).atTime(9, 45), more.get(4).getStartTime());
+        for (Appointment slot : more) {
+            assertEquals(BookingResult.BOOKED, system.bookAppointment(patient, slot));
+        }
+
+        Patient free = new Patient(102, "Free Patient", "Patient Street", "987-0000");
+        system.getPatients().add(free);
+        assertEquals(monday.atTime(9, 0),
+                system.findEarliestSlots(free, "Osteopathy", monday.atStartOfDay(), 1).get(0).getStartTime());
+        assertTrue(system.findEarliestSlots(free, "Never Offered", null, 5).isEmpty());
+    }
+
+    @Test
+    void testReportCountersFollowTransitions() {
+        Physiotherapist busy = new Physiotherapist(2, "Dr. Busy", "Clinic Road", "123-9999");
+        system.getPhysiotherapists().add(busy);
+        LocalDateTime base = LocalDateTime.now().plusDays(3);
+        for (int i = 0; i < 3; i++) {
+            Appointment appt = new Appointment(20 + i, base.plusHours(i), base.plusHours(i + 1),
+                    "Massage", busy, null, AppointmentStatus.AVAILABLE);
+            system.getAppointments().add(appt);
+            appt.bookAppointment(patient);
+            appt.attendAppointment();
+        }
+        system.getAppointments().get(0).bookAppointment(patient);
+        system.getAppointments().get(0).cancelAppointment();
+
+        assertEquals(3, system.countAppointments(busy, AppointmentStatus.ATTENDED));
+        assertEquals(0, system.countAppointments(physio, AppointmentStatus.AVAILABLE));
+        assertEquals(1, system.countAppointments(physio, AppointmentStatus.CANCELLED));
+        assertEquals(List.of(busy, physio), system.rankByAttended());
+    }
+
+    @Test
+    void testReportFormats() throws Exception {
+        Appointment appt = system.getAppointments().get(0);
+        appt.bookAppointment(patient);
+        appt.attendAppointment();
+
+        StringWriter text = new StringWriter();
+        system.generateReport(text, ReportWriter.Format.TEXT);
+        assertTrue(text.toString().contains("(Test Patient) - Status: ATTENDED\n"));
+        assertTrue(text.toString().endsWith("Dr. Test: 1 attended appointments\n"));
+
+        StringWriter csv = new StringWriter();
+        system.generateReport(csv, ReportWriter.Format.CSV);
+        String[] rows = csv.toString().split("\n");
+        assertEquals(3, rows.length);
+        assertTrue(rows[1].startsWith("appointment,Dr. Test,1,"));
+        assertTrue(rows[1].endsWith(",Physiotherapy,Test Patient,ATTENDED,"));
+        assertEquals("ranking,Dr. Test,,,,,,,1", rows[2]);
+
+        StringWriter json = new StringWriter();
+        system.generateReport(json, ReportWriter.Format.JSON_LINES);
+        assertTrue(json.toString().endsWith("{\"type\":\"ranking\",\"physiotherapist\":\"Dr. Test\",\"attended\":1}\n"));
+    }
+
+    @Test
+    void testRecurringAvailabilityIsMaterializedOnSearch() {
+        Physiotherapist ruled = new Physiotherapist(3, "Dr. Rules", "Clinic Road", "123-3333");
+        ruled.addExpertise("Osteopathy");
+        LocalDate monday = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+        ruled.addAvailabilityRule(new AvailabilityRule(DayOfWeek.MONDAY, LocalTime.of(9, 0),
+                LocalTime.of(12, 0), Duration.ofMinutes(45), "Osteopathy"));
+        system.getPhysiotherapists().add(ruled);
+
+        // Only the weeks the search needs are generated: 4 slots per Monday
+        List<Appointment> page = system.getAvailableAppointmentsByExpertise("Osteopathy", monday.atStartOfDay(), 6);
+        assertEquals(6, page.size());
+        assertEquals(monday.atTime(9, 0), page.get(0).getStartTime());
+        assertEquals(monday.atTime(11, 15), page.get(3).getStartTime());
+        assertEquals(monday.plusWeeks(1).atTime(9, 0), page.get(4).getStartTime());
+        assertTrue(system.getAppointments().size() < 1 + 4 * 5);
+
+        // Materialized slots are ordinary appointments and are never generated twice
+        page.get(0).bookAppointment(patient);
+        List<Appointment> again = system.getAvailableAppointmentsByExpertise("Osteopathy", monday.atStartOfDay(), 6);
+        assertEquals(monday.atTime(9, 45), again.get(0).getStartTime());
+        List<Appointment> byName = system.getAvailableAppointmentsByPhysiotherapist("dr. rules");
+        assertFalse(byName.contains(page.get(0)));
+        assertTrue(byName.containsAll(again));
+    }
+
+    @Test
+    void testRuleAddedLaterOpensDaysAlreadyMaterialized() {
+        Physiotherapist ruled = new Physiotherapist(3, "Dr. Rules", "Clinic Road", "123-3333");
+        ruled.addExpertise("Osteopathy");
+        LocalDate monday = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+        ruled.addAvailabilityRule(new AvailabilityRule(DayOfWeek.MONDAY, LocalTime.of(9, 0),
+                LocalTime.of(12, 0), Duration.ofMinutes(45), "Osteopathy"));
+        system.getPhysiotherapists().add(ruled);
+        assertEquals(4, system.getAvailableAppointmentsByExpertise("Osteopathy", monday.atStartOfDay(), 4).size());
+
+        // The afternoon rule's slots appear on the Monday already generated, once
+        ruled.addAvailabilityRule(new AvailabilityRule(DayOfWeek.MONDAY, LocalTime.of(14, 0),
+                LocalTime.of(16, 0), Duration.ofHours(1), "Osteopathy"));
+        assertEquals(6, system.getAvailableAppointmentsBetween(monday.atStartOfDay(), monday.atTime(23, 0), 100)
+                .stream().filter(a -> a.getPhysiotherapist() == ruled).count());
+        system.getAvailableAppointmentsByExpertise("Osteopathy", monday.atStartOfDay(), 100);
+        assertEquals(1, system.getAppointments().stream()
+                .filter(a -> a.getStartTime().equals(monday.atTime(14, 0))).count());
+    }
+
+    @Test
+    void testGeneratedBookingIdsStayInTheirRange() {
+        BookingSystem bounded = new BookingSystem();
+        bounded.limitBookingIds(100, 102);
+        Physiotherapist physio = new Physiotherapist(7, "Dr. Bounded", "Clinic Road", "123-7777");
+        bounded.getPhysiotherapists().add(physio);
+        LocalDateTime start = LocalDateTime.of(2030, 1, 7, 9, 0);
+        // An explicit ID past the limit does not move the generator there
+        bounded.getAppointments().add(new Appointment(500, start, start.plusHours(1), "Massage",
+                physio, null, AppointmentStatus.AVAILABLE));
+        assertEquals(100, bounded.createAppointment(start.plusHours(1), start.plusHours(2), "Massage", physio)
+                .getBookingId());
+        assertEquals(101, bounded.createAppointment(start.plusHours(2), start.plusHours(3), "Massage", physio)
+                .getBookingId());
+        assertThrows(IllegalStateException.class,
+                () -> bounded.createAppointment(start.plusHours(3), start.plusHours(4), "Massage", physio));
+    }
+
+    @Test
+    void testMetricsRecordOperationsAndTransitions() {
+        Appointment appt = system.getAppointments().get(0);
+        assertEquals(BookingResult.BOOKED, system.bookAppointment(patient, appt));
+        Patient other = new Patient(102, "Other Patient", "Other Street", "111-2222");
+        assertEquals(BookingResult.SLOT_UNAVAILABLE, system.bookAppointment(other, appt));
+        assertTrue(system.attendAppointment(appt));
+        assertFalse(system.attendAppointment(appt));
+
+        Appointment clash = new Appointment(2, appt.getStartTime(), appt.getEndTime(), "Massage",
+                physio, null, AppointmentStatus.AVAILABLE);
+        system.getAppointments().add(clash);
+        assertEquals(BookingResult.TIME_CONFLICT, system.bookAppointment(patient, clash));
+        system.cancelAppointment(clash);
+
+        BookingMetrics metrics = system.getMetrics();
+        assertEquals(3, metrics.latency(BookingMetrics.Operation.BOOK).count());
+        assertEquals(2, metrics.latency(BookingMetrics.Operation.ATTEND).count());
+        assertEquals(1, metrics.latency(BookingMetrics.Operation.CANCEL).count());
+        assertEquals(1, metrics.transitions(AppointmentStatus.AVAILABLE, AppointmentStatus.BOOKED));
+        assertEquals(1, metrics.transitions(AppointmentStatus.BOOKED, AppointmentStatus.ATTENDED));
+        assertEquals(1, metrics.transitions(AppointmentStatus.AVAILABLE, AppointmentStatus.CANCELLED));
+        assertEquals(1, metrics.conflictRejections());
+        assertTrue(metrics.snapshot().contains("transition.BOOKED.ATTENDED 1\n"));
+    }
+
+    @Test
+    void testBatchBookingIsAllOrNothing() {
+        LocalDateTime base = LocalDateTime.now().plusDays(7);
+        for (int i = 0; i < 5; i++) {
+            system.getAppointments().add(new Appointment(30 + i, base.plusHours(i), base.plusHours(i + 1),
+                    "Physiotherapy", physio, null, AppointmentStatus.AVAILABLE));
+        }
+        // Overlaps slot 32
+        system.getAppointments().add(new Appointment(40, base.plusHours(2).plusMinutes(30),
+                base.plusHours(3).plusMinutes(30), "Physiotherapy", physio, null, AppointmentStatus.AVAILABLE));
+
+        List<BookingResult> clash = system.bookBatch(patient, List.of(30, 32, 40, 99));
+        assertEquals(List.of(BookingResult.ABORTED, BookingResult.ABORTED,
+                BookingResult.TIME_CONFLICT, BookingResult.NOT_FOUND), clash);
+        assertEquals(AppointmentStatus.AVAILABLE, system.getAppointmentById(30).getStatus());
+
+        List<BookingResult> ok = system.bookBatch(patient, List.of(34, 30, 32));
+        assertEquals(List.of(BookingResult.BOOKED, BookingResult.BOOKED, BookingResult.BOOKED), ok);
+        assertSame(patient, system.getAppointmentById(34).getPatient());
+
+        // Slot 33 is free but slot 34 is now taken, so neither is booked
+        Patient other = new Patient(102, "Other Patient", "Other Street", "111-2222");
+        assertEquals(List.of(BookingResult.ABORTED, BookingResult.SLOT_UNAVAILABLE),
+                system.bookBatch(other, List.of(33, 34)));
+        assertEquals(AppointmentStatus.AVAILABLE, system.getAppointmentById(33).getStatus());
+
+        // A release only undoes the patient's own claim
+        Appointment slot = system.getAppointmentById(33);
+        assertTrue(slot.claim(other));
+        slot.cancelAppointment();
+        assertFalse(slot.release(other));
+        assertEquals(AppointmentStatus.CANCELLED, slot.getStatus());
+        assertFalse(system.getAppointmentById(34).release(other));
+        assertSame(patient, system.getAppointmentById(34).getPatient());
+    }
+
+    @Test
+    void testConcurrentBookingNeverDoubleBooks() throws Exception {
+        // Two therapists with identical timetables, so every slot has an overlapping twin
+        Physiotherapist second = new Physiotherapist(2, "Dr. Second", "Clinic Road", "123-0000");
+        LocalDateTime base = LocalDateTime.now().plusDays(10);
+        for (int i = 0; i < 100; i++) {
+            LocalDateTime start = base.plusHours(i);
+            system.getAppointments().add(new Appointment(100 + 2 * i, start, start.plusHours(1),
+                    "Physiotherapy", physio, null, AppointmentStatus.AVAILABLE));
+            system.getAppointments().add(new Appointment(101 + 2 * i, start, start.plusHours(1),
+                    "Physiotherapy", second, null, AppointmentStatus.AVAILABLE));
+        }
+        for (int id = 200; id < 220; id++) {
+            system.getPatients().add(new Patient(id, "Patient " + id, "Street", "000"));
+        }
+
+        List<Appointment> slots = system.getAppointments();
+        AtomicIntegerArray wins = new AtomicIntegerArray(slots.size());
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            pool.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int n = 0; n < 5000; n++) {
+                    int slot = random.nextInt(slots.size());
+                    Patient p = system.getPatientById(200 + random.nextInt(20));
+                    if (system.bookAppointment(p, slots.get(slot)) == BookingResult.BOOKED) {
+                        wins.incrementAndGet(slot);
+                    }
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        for (int i = 0; i < slots.size(); i++) {
+            Appointment appt = slots.get(i);
+            assertTrue(wins.get(i) <= 1, "Slot " + appt.getBookingId() + " booked twice");
+            assertEquals(appt.getStatus() == AppointmentStatus.BOOKED ? 1 : 0, wins.get(i));
+        }
+        for (Patient p : system.getPatients()) {
+            List<Appointment> booked = new ArrayList<>();
+            for (Appointment appt : slots) {
+                if (appt.getPatient() == p) {
+                    for (Appointment other : booked) {
+                        assertFalse(other.getStartTime().isBefore(appt.getEndTime())
+                                && other.getEndTime().isAfter(appt.getStartTime()),
+                                p.getName() + " double-booked");
+                    }
+                    booked.add(appt);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testCommandRunner() throws Exception {
+        String commands = String.join("\n",
+                "# batch import",
+                "add-patient|102|Batch Patient|1 Batch Lane|555-0102",
+                "book|102|1",
+                "attend|1",
+                "book|101|1",
+                "cancel|99",
+                "frobnicate|1",
+                "report|csv",
+                "");
+        StringWriter out = new StringWriter();
+        CommandRunner runner = new CommandRunner(system, out);
+        runner.run(new java.io.ByteArrayInputStream(commands.getBytes(java.nio.charset.StandardCharsets.UTF_8)));
+
+        assertEquals(7, runner.getExecuted());
+        assertEquals(3, runner.getFailed());
+        assertEquals("Batch Patient", system.getPatientById(102).getName());
+        assertEquals(AppointmentStatus.ATTENDED, system.getAppointmentById(1).getStatus());
+        String output = out.toString();
+        assertTrue(output.contains("line 5: SLOT_UNAVAILABLE"), output);
+        assertTrue(output.contains("line 6: appointment not found"), output);
+        assertTrue(output.contains("line 7: unknown command"), output);
+        assertTrue(output.contains("Batch Patient"), output);
+        assertTrue(output.contains("Processed 7 commands (3 failed)"), output);
+    }
+
+    @Test
+    void testSearchCacheIsNeverStale() {
+        Appointment second = new Appointment(2, LocalDateTime.now().plusDays(2),
+                LocalDateTime.now().plusDays(2).plusHours(1), "Physiotherapy", physio, null, AppointmentStatus.AVAILABLE);
+        system.getAppointments().add(second);
+        SearchCache cache = system.getSearchCache();
+
+        assertEquals(2, system.getAvailableAppointmentsByExpertise("Physiotherapy", null, 10).size());
+        assertEquals(2, system.getAvailableAppointmentsByExpertise("Physiotherapy", null, 10).size());
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+
+        // A booking bumps the therapist's version, so the next search recomputes
+        assertEquals(BookingResult.BOOKED, system.bookAppointment(patient, second));
+        assertEquals(List.of(1), system.getAvailableAppointmentsByExpertise("Physiotherapy", null, 10)
+                .stream().map(Appointment::getBookingId).toList());
+        assertEquals(2, cache.misses());
+
+        // Name queries are cached case-insensitively
+        system.getAvailableAppointmentsByPhysiotherapist("DR. TEST");
+        assertEquals(1, system.getAvailableAppointmentsByPhysiotherapist("dr. test").size());
+        assertEquals(2, cache.hits());
+
+        // A new matching therapist invalidates every entry
+        Physiotherapist other = new Physiotherapist(2, "Dr. Other", "Clinic Road", "123-0000");
+        other.addExpertise("Physiotherapy");
+        system.getPhysiotherapists().add(other);
+        system.getAppointments().add(new Appointment(3, LocalDateTime.now().plusDays(3),
+                LocalDateTime.now().plusDays(3).plusHours(1), "Physiotherapy", other, null, AppointmentStatus.AVAILABLE));
+        assertEquals(2, system.getAvailableAppointmentsByExpertise("Physiotherapy", null, 10).size());
+        assertEquals(2, cache.hits());
+    }
+
+    @Test
+    void testNameIndex() {
+        system.getPatients().add(new Patient(102, "Anna Smith", "Street", "555-0001"));
+        system.getPatients().add(new Patient(103, "anna smith", "Street", "555-0002"));
+        system.getPatients().add(new Patient(104, "Annabel Jones", "Street", "555-0003"));
+        system.getPatients().add(new Patient(105, "Bob Ann", "Street", "555-0004"));
+
+        assertEquals(List.of(102, 103), system.findPatientsByName("ANNA SMITH").stream().map(Patient::getId).toList());
+        assertEquals(List.of(102, 103, 104), system.findPatientsByNamePrefix("ann", 10).stream()
+                .map(Patient::getId).toList());
+        assertEquals(2, system.findPatientsByNamePrefix("Ann", 2).size());
+        assertTrue(system.findPatientsByNamePrefix("annx", 10).isEmpty());
+
+        system.getPatients().remove(system.getPatientById(103));
+        assertEquals(List.of(102), system.findPatientsByName("anna smith").stream().map(Patient::getId).toList());
+
+        // Therapist prefixes chain into that therapist's open slots
+        assertEquals(List.of(physio), system.findPhysiotherapistsByNamePrefix("dr. t", 10));
+        assertEquals(1, system.getAvailableAppointmentsByPhysiotherapistPrefix("DR", null, 10).size());
+        assertTrue(system.getAvailableAppointmentsByPhysiotherapistPrefix("Mr", null, 10).isEmpty());
+    }
+
+    @Test
+    void testRescheduleMovesBookingInPlace() {
+        Appointment appt = system.getAppointmentById(1);
+        LocalDateTime start = appt.getStartTime();
+        Appointment other = new Appointment(2, start.plusHours(3), start.plusHours(4), "Physiotherapy",
+                physio, null, AppointmentStatus.AVAILABLE);
+        system.getAppointments().add(other);
+        assertEquals(BookingResult.BOOKED, system.bookAppointment(patient, appt));
+        assertEquals(BookingResult.BOOKED, system.bookAppointment(patient, other));
+
+        // Overlapping its own old time is fine; the appointment keeps its ID and patient
+        assertEquals(BookingResult.BOOKED, system.reschedule(1, start.plusMinutes(30), start.plusMinutes(90)));
+        assertSame(appt, system.getAppointmentById(1));
+        assertSame(patient, appt.getPatient());
+        assertEquals(AppointmentStatus.BOOKED, appt.getStatus());
+        assertEquals(start.plusMinutes(30), appt.getStartTime());
+        assertEquals(2, system.getAppointments().size());
+        assertFalse(system.hasTimeConflict(patient, start, start.plusMinutes(30)));
+        assertTrue(system.hasTimeConflict(patient, start.plusMinutes(60), start.plusMinutes(70)));
+
+        assertEquals(BookingResult.TIME_CONFLICT, system.reschedule(1, start.plusHours(3), start.plusHours(4)));
+        assertEquals(start.plusMinutes(30), appt.getStartTime());
+        assertEquals(BookingResult.NOT_FOUND, system.reschedule(99, start, start.plusHours(1)));
+        assertThrows(IllegalArgumentException.class, () -> system.reschedule(1, start, start));
+
+        system.cancelAppointment(appt);
+        assertEquals(BookingResult.SLOT_UNAVAILABLE, system.reschedule(1, start, start.plusHours(1)));
+        assertFalse(system.hasTimeConflict(patient, start.plusMinutes(30), start.plusMinutes(90)));
+        assertEquals(4, system.getMetrics().latency(BookingMetrics.Operation.RESCHEDULE).count());
+    }
+
+    @Test
+    void testConcurrentCreatorsGetDistinctIds() throws Exception {
+        LocalDateTime base = LocalDateTime.now().plusDays(30);
+        // This thread now holds a block of IDs; one of them is then taken explicitly
+        assertEquals(2, system.createAppointment(base, base.plusHours(1), "Physiotherapy", physio).getBookingId());
+        system.getAppointments().add(new Appointment(4, base, base.plusHours(1), "Physiotherapy", physio,
+                null, AppointmentStatus.AVAILABLE));
+        assertEquals(3, system.createAppointment(base, base.plusHours(1), "Physiotherapy", physio).getBookingId());
+        assertEquals(5, system.createAppointment(base, base.plusHours(1), "Physiotherapy", physio).getBookingId());
+
+        int threads = 4;
+        int perThread = 1_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    system.createAppointment(base.plusHours(i), base.plusHours(i + 1), "Physiotherapy", physio);
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(5 + threads * perThread, system.getAppointments().size());
+        assertEquals(system.getAppointments().size(),
+                system.getAppointments().stream().mapToInt(Appointment::getBookingId).distinct().count());
+    }
+
+    @Test
+    void testCalendarRangeQueriesAcrossWheelTurns() {
+        LocalDate first = LocalDate.of(2030, 1, 1);
+        CalendarIndex calendar = new CalendarIndex(first);
+        List<Appointment> slots = new ArrayList<>();
+        // Two slots a day before, inside and beyond the 1024-day wheel
+        for (int day : new int[] {-3, 0, 5, 1023, 1024, 2000}) {
+            for (int hour : new int[] {14, 9}) {
+                LocalDateTime start = first.plusDays(day).atTime(hour, 0);
+                Appointment slot = new Appointment(slots.size() + 1, start, start.plusHours(1), "Physiotherapy",
+                        physio, null, AppointmentStatus.AVAILABLE);
+                slots.add(slot);
+                calendar.reconcile(slot);
+            }
+        }
+        slots.get(3).bookAppointment(patient);
+        calendar.reconcile(slots.get(3));
+
+        LocalDateTime from = first.minusDays(3).atTime(10, 0);
+        LocalDateTime to = first.plusDays(1024).atTime(14, 0);
+        List<Integer> expected = List.of(1, 3, 6, 5, 8, 7, 10);
+        assertEquals(expected, calendar.between(from, to, p -> true, 100).stream()
+                .map(Appointment::getBookingId).toList());
+        assertEquals(expected.subList(0, 3), calendar.between(from, to, p -> true, 3).stream()
+                .map(Appointment::getBookingId).toList());
+
+        // Turning the wheel past some days and onto others changes no answers
+        calendar.advance(first.plusDays(1000));
+        assertEquals(expected, calendar.between(from, to, p -> true, 100).stream()
+                .map(Appointment::getBookingId).toList());
+        calendar.move(slots.get(11), () -> slots.get(11).moveTo(first.plusDays(1).atTime(8, 0),
+                first.plusDays(1).atTime(9, 0)));
+        calendar.remove(slots.get(0));
+        assertEquals(List.of(3, 12, 6, 5, 8, 7, 10), calendar.between(from, to, p -> true, 100).stream()
+                .map(Appointment::getBookingId).toList());
+        assertTrue(calendar.between(to, from, p -> true, 100).isEmpty());
+    }
+
+    @Test
+    void testArchivingKeepsHistoryOutOfSearches() throws Exception {
+        LocalDateTime past = LocalDate.now().minusDays(10).atTime(9, 0);
+        for (int i = 0; i < 3; i++) {
+            system.getAppointments().add(new Appointment(10 + i, past.plusHours(i), past.plusHours(i + 1),
+                    "Physiotherapy", physio, null, AppointmentStatus.AVAILABLE));
+        }
+        Appointment attended = system.getAppointmentById(10);
+        Appointment booked = system.getAppointmentById(11);
+        assertEquals(BookingResult.BOOKED, system.bookAppointment(patient, attended));
+        assertTrue(system.attendAppointment(attended));
+        assertEquals(BookingResult.BOOKED, system.bookAppointment(patient, booked));
+        assertEquals(List.of(12), system.getAvailableAppointmentsBetween(past, past.plusDays(1), 10).stream()
+                .map(Appointment::getBookingId).toList());
+        StringWriter before = new StringWriter();
+        system.generateReport(before, ReportWriter.Format.CSV);
+
+        // The attended and the expired open slot go; the booked one stays until settled
+        assertEquals(2, system.archiveBefore(LocalDate.now().atStartOfDay()));
+        assertNull(system.getAppointmentById(10));
+        assertNull(system.getAppointmentById(12));
+        assertSame(booked, system.getAppointmentById(11));
+        assertEquals(2, system.getAppointments().size());
+        assertTrue(system.getAvailableAppointmentsBetween(past, past.plusDays(1), 10).isEmpty());
+        assertEquals(List.of(1), system.getAvailableAppointmentsBetween(past, LocalDateTime.now().plusDays(2), 10)
+                .stream().map(Appointment::getBookingId).toList());
+        assertEquals(1, system.countAppointments(physio, AppointmentStatus.ATTENDED));
+
+        // Same report lines, the archived ones first
+        StringWriter after = new StringWriter();
+        system.generateReport(after, ReportWriter.Format.CSV);
+        List<String> beforeLines = List.of(before.toString().split("\n"));
+        List<String> afterLines = List.of(after.toString().split("\n"));
+        assertEquals(beforeLines.stream().sorted().toList(), afterLines.stream().sorted().toList());
+        assertTrue(afterLines.get(1).contains(",10,"), after.toString());
+
+        system.cancelAppointment(booked);
+        // The attended visit in the archive still counts against removing the patient
+        assertTrue(system.hasBookedAppointments(patient));
+        assertEquals(1, system.archiveBefore(LocalDate.now().atStartOfDay()));
+        assertEquals(3, system.getArchivedAppointments().size());
+    }
+
+    @Test
+    void testReportReadsOneSnapshotWhileWritersCarryOn() throws Exception {
+        // More than one copy chunk of appointments, a few of them old enough to archive
+        LocalDateTime past = LocalDate.now().minusDays(10).atTime(9, 0);
+        LocalDateTime future = LocalDate.now().plusDays(30).atTime(9, 0);
+        for (int i = 0; i < 1500; i++) {
+            LocalDateTime start = i < 5 ? past.plusHours(i) : future.plusHours(i);
+            system.getAppointments().add(new Appointment(10 + i, start, start.plusHours(1),
+                    "Physiotherapy", physio, null, AppointmentStatus.AVAILABLE));
+        }
+        assertEquals(BookingResult.BOOKED, system.bookAppointment(patient, system.getAppointmentById(20)));
+        assertEquals(BookingResult.BOOKED, system.bookAppointment(patient, system.getAppointmentById(10)));
+        assertTrue(system.attendAppointment(system.getAppointmentById(10)));
+        StringWriter expected = new StringWriter();
+        system.generateReport(expected, ReportWriter.Format.CSV);
+
+        // The sink changes everything it can once the report is under way
+        StringWriter seen = new StringWriter();
+        Writer sink = new Writer() {
+            boolean changed;
+
+            @Override
+            public void write(char[] buf, int off, int len) {
+                seen.write(buf, off, len);
+                if (!changed) {
+                    changed = true;
+                    system.attendAppointment(system.getAppointmentById(20));
+                    assertEquals(BookingResult.BOOKED, system.bookAppointment(patient, system.getAppointmentById(30)));
+                    assertEquals(BookingResult.BOOKED, system.reschedule(30, future.minusDays(1), future.minusDays(1).plusHours(1)));
+                    system.getAppointments().remove(system.getAppointmentById(1500));
+                    system.getAppointments().add(new Appointment(5000, future, future.plusHours(1),
+                            "Physiotherapy", physio, null, AppointmentStatus.AVAILABLE));
+                    assertEquals(5, system.archiveBefore(LocalDate.now().atStartOfDay()));
+                }
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        system.generateReport(new BufferedWriter(sink, 1), ReportWriter.Format.CSV);
+        assertEquals(expected.toString(), seen.toString());
+
+        // The next report sees the changes
+        StringWriter after = new StringWriter();
+        system.generateReport(after, ReportWriter.Format.CSV);
+        assertNotEquals(expected.toString(), after.toString());
+        assertTrue(after.toString().contains(",5000,"));
+        assertEquals(2, system.countAppointments(physio, AppointmentStatus.ATTENDED));
+
+        try (Snapshot snapshot = Snapshot.open()) {
+            Appointment slot = system.getAppointmentById(40);
+            assertEquals(BookingResult.BOOKED, system.bookAppointment(patient, slot));
+            Appointment created = new Appointment(5001, future, future.plusHours(1),
+                    "Physiotherapy", physio, null, AppointmentStatus.AVAILABLE);
+            assertSame(AppointmentStatus.AVAILABLE, slot.asOf(snapshot).getStatus());
+            assertNull(slot.asOf(snapshot).getPatient());
+            assertNull(created.asOf(snapshot));
+        }
+    }
+
+    @Test
+    void testSnapshotOpensBetweenStampedWrites() throws Exception {
+        // A write holding the current stamp keeps the snapshot from opening until it lands
+        long stamp = Snapshot.beginWrite();
+        CompletableFuture<Snapshot> opening = CompletableFuture.supplyAsync(Snapshot::open);
+        assertThrows(TimeoutException.class, () -> opening.get(200, TimeUnit.MILLISECONDS));
+        Snapshot.endWrite(stamp);
+        try (Snapshot snapshot = opening.get(5, TimeUnit.SECONDS)) {
+            assertEquals(stamp, snapshot.stamp());
+            long later = Snapshot.beginWrite();
+            Snapshot.endWrite(later);
+            assertTrue(later > snapshot.stamp());
+        }
+
+        // Slot a is claimed before b and released after it, so no snapshot may show b booked without a
+        LocalDateTime start = LocalDateTime.now().plusDays(3);
+        Appointment a = new Appointment(60, start, start.plusHours(1), "Physiotherapy", physio, null,
+                AppointmentStatus.AVAILABLE);
+        Appointment b = new Appointment(61, start.plusHours(1), start.plusHours(2), "Physiotherapy", physio, null,
+                AppointmentStatus.AVAILABLE);
+        AtomicBoolean stop = new AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            while (!stop.get()) {
+                a.claim(patient);
+                b.claim(patient);
+                b.release(patient);
+                a.release(patient);
+            }
+        });
+        writer.start();
+        try {
+            for (int i = 0; i < 20_000; i++) {
+                try (Snapshot snapshot = Snapshot.open()) {
+                    AppointmentStatus first = a.asOf(snapshot).getStatus();
+                    AppointmentStatus second = b.asOf(snapshot).getStatus();
+                    assertFalse(second == AppointmentStatus.BOOKED && first != AppointmentStatus.BOOKED);
+                }
+            }
+        } finally {
+            stop.set(true);
+            writer.join();
+        }
+    }
+
+    @Test
+    void testExpertiseAndTreatmentsAreDictionaryEncoded() {
+        // Enough distinct terms that the bitset spans several words
+        for (int i = 0; i < 150; i++) {
+            TermDictionary.intern("Term " + i);
+        }
+        physio.addExpertise("Term 149");
+        physio.addExpertise(new String("Physiotherapy"));
+        physio.addExpertise("Term 3");
+        assertEquals(List.of("Physiotherapy", "Term 149", "Term 3"), physio.getExpertiseAreas());
+        assertEquals("Physiotherapy, Term 149, Term 3", physio.getExpertiseString());
+        assertTrue(physio.hasExpertise(new String("Term 149")));
+        assertTrue(physio.hasExpertise(TermDictionary.find("Term 3")));
+        assertFalse(physio.hasExpertise("Term 4"));
+        assertFalse(physio.hasExpertise("Never Interned"));
+        assertFalse(physio.hasExpertise(TermDictionary.NONE));
+        assertEquals(1, system.getAvailableAppointmentsByExpertise("Term 149", null, 10).size());
+
+        Appointment appt = system.getAppointmentById(1);
+        assertEquals("Physiotherapy", appt.getTreatmentName());
+        assertEquals(TermDictionary.find("Physiotherapy"), appt.getTreatmentCode());
+        assertNull(new Appointment(2, appt.getStartTime(), appt.getEndTime(), null, physio, null,
+                AppointmentStatus.AVAILABLE).getTreatmentName());
+    }
+}
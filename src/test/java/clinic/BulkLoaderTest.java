@@ -0,0 +1,143 @@
+package clinic;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+public class BulkLoaderTest {
+    @TempDir
+    Path dir;
+
+    private BookingSystem load() throws Exception {
+        BookingSystem system = new BookingSystem();
+        Path physios = Files.writeString(dir.resolve("physiotherapists.csv"),
+                "id,name,address,telephone,expertise\n"
+                        + "1,\"Dr. Smith, Jr.\",Clinic Road,123-4567,Physiotherapy;Massage Therapy\r\n"
+                        + "2,Dr. Jones,\"The \"\"Old\"\" Mill\",123-0002,Osteopathy\n");
+        Path patients = Files.writeString(dir.resolve("patients.csv"),
+                "id,name,address,telephone\n101,Test Patient,Patient Street,987-6543\n\n102,Second,Street,555\n");
+        Path appointments = Files.writeString(dir.resolve("appointments.csv"),
+                "booking_id,start,end,treatment,physiotherapist_id,patient_id,status\n"
+                        + "1,2030-01-07T09:00,2030-01-07T10:00,Massage,1,,AVAILABLE\n"
+                        + "2,2030-01-07T10:00:30,2030-01-07T11:00,Massage,1,101,BOOKED\n"
+                        + "3,2030-01-07T09:00:00.5,2030-01-07T10:00,Osteopathy,2,102,ATTENDED\n");
+        assertEquals(2, BulkLoader.importPhysiotherapists(system, physios));
+        assertEquals(2, BulkLoader.importPatients(system, patients));
+        assertEquals(3, BulkLoader.importAppointments(system, appointments));
+        return system;
+    }
+
+    @Test
+    void testImportsCsvAndBuildsIndexes() throws Exception {
+        BookingSystem system = load();
+        Physiotherapist smith = system.findPhysiotherapistsByName("dr. smith, jr.").get(0);
+        assertEquals(List.of("Physiotherapy", "Massage Therapy"), smith.getExpertiseAreas());
+        assertEquals("The \"Old\" Mill", system.getPhysiotherapists().get(1).getAddress());
+        assertEquals("Second", system.getPatientById(102).getName());
+
+        Appointment booked = system.getAppointmentById(2);
+        assertEquals(LocalDateTime.of(2030, 1, 7, 10, 0, 30), booked.getStartTime());
+        assertSame(system.getPatientById(101), booked.getPatient());
+        assertEquals(LocalDateTime.of(2030, 1, 7, 9, 0, 0, 500_000_000), system.getAppointmentById(3).getStartTime());
+        assertTrue(system.hasTimeConflict(system.getPatientById(101), booked.getStartTime(), booked.getEndTime()));
+        assertEquals(List.of(system.getAppointmentById(1)),
+                system.getAvailableAppointmentsByExpertise("Massage Therapy", null, 10));
+        assertEquals(1, system.countAppointments(system.getPhysiotherapists().get(1), AppointmentStatus.ATTENDED));
+    }
+
+    @Test
+    void testRejectsDuplicatesAndBadLinesWithoutAddingAnything() throws Exception {
+        BookingSystem system = load();
+        Path again = Files.writeString(dir.resolve("more.csv"),
+                "id,name,address,telephone\n103,New,Street,1\n101,Clash,Street,2\n");
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> BulkLoader.importPatients(system, again));
+        assertEquals("Duplicate patient ID: 101", e.getMessage());
+        assertNull(system.getPatientById(103));
+
+        Path twice = Files.writeString(dir.resolve("twice.csv"),
+                "booking_id,start,end,treatment,physiotherapist_id,patient_id,status\n"
+                        + "7,2030-01-08T09:00,2030-01-08T10:00,Massage,1,,AVAILABLE\n"
+                        + "7,2030-01-08T10:00,2030-01-08T11:00,Massage,1,,AVAILABLE\n");
+        e = assertThrows(IllegalArgumentException.class, () -> BulkLoader.importAppointments(system, twice));
+        assertEquals("Duplicate booking ID: 7", e.getMessage());
+
+        Path bad = Files.writeString(dir.resolve("bad.csv"),
+                "booking_id,start,end,treatment,physiotherapist_id,patient_id,status\n"
+                        + "8,2030-01-08T09:00,2030-01-08T10:00,Massage,1,,AVAILABLE\n"
+                        + "9,2030-01-08T25:00,2030-01-08T26:00,Massage,1,,AVAILABLE\n");
+        e = assertThrows(IllegalArgumentException.class, () -> BulkLoader.importAppointments(system, bad));
+        assertTrue(e.getMessage().startsWith("bad.csv line 3: "), e.getMessage());
+        assertNull(system.getAppointmentById(8));
+        assertEquals(3, system.getAppointments().size());
+    }
+
+    @Test
+    void testBinaryBackupRoundTrips() throws Exception {
+        BookingSystem system = load();
+        system.archiveBefore(LocalDateTime.of(2030, 1, 7, 10, 0));
+        Path backup = dir.resolve("clinic.bin");
+        BulkLoader.exportBinary(system, backup);
+
+        BookingSystem restored = new BookingSystem();
+        BulkLoader.restoreBinary(restored, backup);
+        assertEquals(report(system), report(restored));
+        assertEquals(system.getAppointmentById(2).getStartTime(), restored.getAppointmentById(2).getStartTime());
+        // Archived appointments come back hot, ready to be archived again
+        assertEquals(3, restored.getAppointments().size());
+        assertThrows(IllegalArgumentException.class, () -> BulkLoader.restoreBinary(restored, backup));
+    }
+
+    @Test
+    void testBinaryRestoreChecksEverythingBeforeAddingAnything() throws Exception {
+        Path backup = dir.resolve("clinic.bin");
+        BulkLoader.exportBinary(load(), backup);
+
+        // Only the booking IDs clash, and they come last in the backup
+        BookingSystem clash = new BookingSystem();
+        Physiotherapist other = new Physiotherapist(9, "Dr. Other", "Elsewhere", "000");
+        clash.getPhysiotherapists().add(other);
+        LocalDateTime start = LocalDateTime.of(2030, 2, 4, 9, 0);
+        clash.getAppointments().add(new Appointment(2, start, start.plusHours(1), "Massage", other,
+                null, AppointmentStatus.AVAILABLE));
+        assertThrows(IllegalArgumentException.class, () -> BulkLoader.restoreBinary(clash, backup));
+        assertEquals(1, clash.getPhysiotherapists().size());
+        assertTrue(clash.getPatients().isEmpty());
+        assertEquals(1, clash.getAppointments().size());
+    }
+
+    @Test
+    void testBinaryBackupKeepsAvailabilityRules() throws Exception {
+        BookingSystem system = load();
+        Physiotherapist physio = system.getPhysiotherapists().get(0);
+        physio.addAvailabilityRule(new AvailabilityRule(DayOfWeek.MONDAY, LocalTime.of(9, 0),
+                LocalTime.of(12, 0), Duration.ofMinutes(45), "Acupuncture"));
+        system.getAvailableAppointmentsByPhysiotherapist(physio.getName());
+        Path backup = dir.resolve("clinic.bin");
+        BulkLoader.exportBinary(system, backup);
+
+        BookingSystem restored = new BookingSystem();
+        BulkLoader.restoreBinary(restored, backup);
+        List<AvailabilityRule> rules = restored.getPhysiotherapists().get(0).getAvailabilityRules();
+        assertEquals(1, rules.size());
+        assertEquals("Acupuncture", rules.get(0).getTreatmentName());
+        assertEquals(Duration.ofMinutes(45), rules.get(0).getSlotLength());
+        // The materialized days come back with their slots, so nothing is generated twice
+        restored.getAvailableAppointmentsByPhysiotherapist(physio.getName());
+        assertEquals(system.getAppointments().size(), restored.getAppointments().size());
+    }
+
+    private static String report(BookingSystem system) throws Exception {
+        StringWriter out = new StringWriter();
+        system.generateReport(out, ReportWriter.Format.CSV);
+        return out.toString();
+    }
+}
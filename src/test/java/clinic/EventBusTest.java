@@ -0,0 +1,189 @@
+package clinic;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class EventBusTest {
+
+    @Test
+    void testBookingSystemPublishesTransitions() throws Exception {
+        BookingSystem system = new BookingSystem();
+        Physiotherapist physio = new Physiotherapist(1, "Dr. Test", "Clinic Road", "123-4567");
+        system.getPhysiotherapists().add(physio);
+        Appointment appt = new Appointment(1, LocalDateTime.of(2030, 1, 7, 9, 0), LocalDateTime.of(2030, 1, 7, 10, 0),
+                "Physiotherapy", physio, null, AppointmentStatus.AVAILABLE);
+        system.getAppointments().add(appt);
+
+        List<EventBus.Event> seen = new ArrayList<>();
+        try (EventBus bus = new EventBus(64, EventBus.Backpressure.BLOCK)) {
+            bus.subscribe("audit", batch -> {
+                synchronized (seen) {
+                    seen.addAll(batch);
+                }
+            });
+            system.setEventBus(bus);
+
+            Patient patient = new Patient(101, "Test Patient", "Patient Street", "987-6543");
+            system.getPatients().add(patient);
+            system.bookAppointment(patient, appt);
+            system.attendAppointment(appt);
+            assertTrue(bus.drain(5, TimeUnit.SECONDS));
+        }
+
+        synchronized (seen) {
+            assertEquals(List.of(EventBus.Type.PATIENT_ADDED, EventBus.Type.STATUS_CHANGED, EventBus.Type.STATUS_CHANGED),
+                    seen.stream().map(EventBus.Event::type).toList());
+            assertEquals(new EventBus.Event(EventBus.Type.STATUS_CHANGED, 2, 1, 101,
+                    AppointmentStatus.BOOKED, AppointmentStatus.ATTENDED), seen.get(2));
+        }
+    }
+
+    @Test
+    void testFullRingDoesNotHoldThePatientsLockStripe() throws Exception {
+        BookingSystem system = new BookingSystem();
+        Physiotherapist physio = new Physiotherapist(1, "Dr. Test", "Clinic Road", "123-4567");
+        system.getPhysiotherapists().add(physio);
+        Patient patient = new Patient(101, "Test Patient", "Patient Street", "987-6543");
+        system.getPatients().add(patient);
+        LocalDateTime base = LocalDateTime.of(2030, 1, 7, 9, 0);
+        for (int i = 0; i < 10; i++) {
+            system.getAppointments().add(new Appointment(i + 1, base.plusHours(i), base.plusHours(i + 1),
+                    "Physiotherapy", physio, null, AppointmentStatus.AVAILABLE));
+        }
+
+        EventBus bus = new EventBus(4, EventBus.Backpressure.BLOCK);
+        CountDownLatch release = new CountDownLatch(1);
+        bus.subscribe("stuck", batch -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        system.setEventBus(bus);
+        Thread first = new Thread(() -> {
+            for (int id = 1; id < 10; id++) {
+                system.bookAppointment(patient, system.getAppointmentById(id));
+            }
+        });
+        first.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (bus.lag() < 4 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(4, bus.lag());
+
+        // The first thread waits for ring space; the patient's stripe must be free meanwhile
+        Appointment last = system.getAppointmentById(10);
+        Thread second = new Thread(() -> system.bookAppointment(patient, last));
+        second.start();
+        deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (last.getStatus() != AppointmentStatus.BOOKED && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(AppointmentStatus.BOOKED, last.getStatus());
+
+        release.countDown();
+        first.join(10_000);
+        second.join(10_000);
+        assertTrue(bus.drain(10, TimeUnit.SECONDS));
+        assertEquals(10, bus.published());
+        bus.close();
+    }
+
+    @Test
+    void testSubscribersJoinWhilePublishersLapTheRing() throws Exception {
+        EventBus bus = new EventBus(4, EventBus.Backpressure.BLOCK);
+        bus.subscribe("first", batch -> { });
+        Patient patient = new Patient(1, "P", "A", "T");
+        CountDownLatch done = new CountDownLatch(2);
+        for (int p = 0; p < 2; p++) {
+            new Thread(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    bus.publishPatient(EventBus.Type.PATIENT_ADDED, patient);
+                }
+                done.countDown();
+            }).start();
+        }
+        // A subscriber whose start was lapped before it was seen would stall the publishers for good
+        for (int s = 0; s < 20; s++) {
+            bus.subscribe("late-" + s, batch -> { });
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        assertTrue(bus.drain(30, TimeUnit.SECONDS));
+        bus.close();
+    }
+
+    @Test
+    void testBlockingDeliversEverythingInOrder() throws Exception {
+        int producers = 4;
+        int perProducer = 20_000;
+        long[] counts = new long[2];
+        long[] lastSequence = {-1, -1};
+        boolean[] ordered = {true, true};
+
+        EventBus bus = new EventBus(128, EventBus.Backpressure.BLOCK);
+        for (int c = 0; c < 2; c++) {
+            int consumer = c;
+            bus.subscribe("consumer-" + c, batch -> {
+                for (EventBus.Event event : batch) {
+                    ordered[consumer] &= event.sequence() == lastSequence[consumer] + 1;
+                    lastSequence[consumer] = event.sequence();
+                }
+                counts[consumer] += batch.size();
+            });
+        }
+
+        Patient patient = new Patient(1, "P", "A", "T");
+        CountDownLatch done = new CountDownLatch(producers);
+        for (int p = 0; p < producers; p++) {
+            new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    assertTrue(bus.publishPatient(EventBus.Type.PATIENT_ADDED, patient));
+                }
+                done.countDown();
+            }).start();
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        assertTrue(bus.drain(30, TimeUnit.SECONDS));
+        bus.close();
+
+        assertEquals(producers * perProducer, bus.published());
+        assertEquals(0, bus.dropped());
+        for (int c = 0; c < 2; c++) {
+            assertEquals(producers * perProducer, counts[c]);
+            assertTrue(ordered[c]);
+        }
+    }
+
+    @Test
+    void testDropPolicyNeverWaits() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        EventBus bus = new EventBus(16, EventBus.Backpressure.DROP);
+        bus.subscribe("stuck", batch -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        Patient patient = new Patient(1, "P", "A", "T");
+        int accepted = 0;
+        for (int i = 0; i < 100; i++) {
+            if (bus.publishPatient(EventBus.Type.PATIENT_ADDED, patient)) {
+                accepted++;
+            }
+        }
+        assertEquals(16, accepted);
+        assertEquals(84, bus.dropped());
+        release.countDown();
+        assertTrue(bus.drain(5, TimeUnit.SECONDS));
+        bus.close();
+    }
+}
@@ -0,0 +1,221 @@
+package clinic;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+
+public class JournalTest {
+    @TempDir
+    Path dir;
+
+    private BookingSystem populate(BookingSystem system) {
+        Physiotherapist physio = new Physiotherapist(1, "Dr. Test", "Clinic Road", "123-4567");
+        physio.addExpertise("Physiotherapy");
+        system.getPhysiotherapists().add(physio);
+        system.getPatients().add(new Patient(101, "Test Patient", "Patient Street", "987-6543"));
+        system.getPatients().add(new Patient(102, "Gone Patient", "Patient Street", "987-0000"));
+
+        LocalDateTime base = LocalDateTime.of(2030, 1, 7, 9, 0);
+        for (int i = 0; i < 5; i++) {
+            system.getAppointments().add(new Appointment(i + 1, base.plusHours(i), base.plusHours(i + 1),
+                    "Physiotherapy", physio, null, AppointmentStatus.AVAILABLE));
+        }
+        return system;
+    }
+
+    @Test
+    void testRecoversAfterCrash() throws Exception {
+        BookingSystem system = new BookingSystem();
+        Journal journal = Journal.open(dir, system, Journal.Durability.SYNC);
+        populate(system);
+        Patient patient = system.getPatientById(101);
+        system.bookAppointment(patient, system.getAppointmentById(1));
+        system.bookAppointment(patient, system.getAppointmentById(2));
+        system.getAppointmentById(2).attendAppointment();
+        system.bookAppointment(patient, system.getAppointmentById(3));
+        system.getAppointmentById(3).cancelAppointment();
+        system.reschedule(1, LocalDateTime.of(2030, 1, 7, 20, 0), LocalDateTime.of(2030, 1, 7, 21, 0));
+        system.getPatients().remove(system.getPatientById(102));
+        journal.halt();
+
+        // A write torn half way through must not stop recovery
+        Path segment;
+        try (var files = Files.list(dir)) {
+            segment = files.filter(p -> p.toString().endsWith(".log")).findFirst().orElseThrow();
+        }
+        Files.write(segment, new byte[] {0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        BookingSystem recovered = new BookingSystem();
+        Journal reopened = Journal.open(dir, recovered, Journal.Durability.SYNC);
+        assertRecovered(recovered);
+
+        // The torn tail is cut off, so new records land after the last good one
+        recovered.getAppointmentById(4).bookAppointment(recovered.getPatientById(101));
+        reopened.close();
+        BookingSystem again = new BookingSystem();
+        Journal.open(dir, again, Journal.Durability.ASYNC).close();
+        assertEquals(AppointmentStatus.BOOKED, again.getAppointmentById(4).getStatus());
+    }
+
+    @Test
+    void testSnapshotPlusTailReplay() throws Exception {
+        BookingSystem system = new BookingSystem();
+        Journal journal = Journal.open(dir, system, Journal.Durability.ASYNC);
+        populate(system);
+        Patient patient = system.getPatientById(101);
+        system.bookAppointment(patient, system.getAppointmentById(1));
+        system.bookAppointment(patient, system.getAppointmentById(2));
+        journal.checkpoint(system);
+
+        // Only these changes are left in the journal after the snapshot
+        system.getAppointmentById(2).attendAppointment();
+        system.bookAppointment(patient, system.getAppointmentById(3));
+        system.getAppointmentById(3).cancelAppointment();
+        system.reschedule(1, LocalDateTime.of(2030, 1, 7, 20, 0), LocalDateTime.of(2030, 1, 7, 21, 0));
+        system.getPatients().remove(system.getPatientById(102));
+        journal.sync();
+        journal.halt();
+
+        try (var files = Files.list(dir)) {
+            assertEquals(1, files.filter(p -> p.toString().endsWith(".log")).count());
+        }
+        BookingSystem recovered = new BookingSystem();
+        Journal.open(dir, recovered, Journal.Durability.ASYNC).close();
+        assertRecovered(recovered);
+    }
+
+    @Test
+    void testRecoversRulesWithoutGeneratingTheirSlotsAgain() throws Exception {
+        BookingSystem system = new BookingSystem();
+        Journal journal = Journal.open(dir, system, Journal.Durability.SYNC);
+        Physiotherapist physio = new Physiotherapist(1, "Dr. Test", "Clinic Road", "123-4567");
+        system.getPhysiotherapists().add(physio);
+        physio.addAvailabilityRule(new AvailabilityRule(DayOfWeek.MONDAY, LocalTime.of(9, 0),
+                LocalTime.of(12, 0), Duration.ofMinutes(45), "Physiotherapy"));
+        system.getAvailableAppointmentsByPhysiotherapist("Dr. Test");
+        journal.checkpoint(system);
+        // After the snapshot: a rule opened over the days already materialized
+        physio.addAvailabilityRule(new AvailabilityRule(DayOfWeek.TUESDAY, LocalTime.of(9, 0),
+                LocalTime.of(10, 0), Duration.ofHours(1), "Massage"));
+        int slots = system.getAppointments().size();
+        journal.halt();
+
+        BookingSystem recovered = new BookingSystem();
+        Journal.open(dir, recovered, Journal.Durability.ASYNC).close();
+        assertEquals(2, recovered.getPhysiotherapists().get(0).getAvailabilityRules().size());
+        assertEquals(slots, recovered.getAppointments().size());
+        recovered.getAvailableAppointmentsByPhysiotherapist("Dr. Test");
+        assertEquals(slots, recovered.getAppointments().size());
+    }
+
+    @Test
+    void testRollsBackMaterializedSlotsCutOffByACrash() throws Exception {
+        BookingSystem system = new BookingSystem();
+        Journal journal = Journal.open(dir, system, Journal.Durability.ASYNC);
+        Physiotherapist physio = new Physiotherapist(1, "Dr. Test", "Clinic Road", "123-4567");
+        system.getPhysiotherapists().add(physio);
+        physio.addAvailabilityRule(new AvailabilityRule(DayOfWeek.MONDAY, LocalTime.of(9, 0),
+                LocalTime.of(12, 0), Duration.ofMinutes(45), "Physiotherapy"));
+        system.getAvailableAppointmentsByPhysiotherapist("Dr. Test");
+        int slots = system.getAppointments().size();
+        journal.close();
+
+        // Tear the last slot of the chunk
+        Path segment;
+        try (var files = Files.list(dir)) {
+            segment = files.filter(p -> p.toString().endsWith(".log")).findFirst().orElseThrow();
+        }
+        try (var channel = java.nio.channels.FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 10);
+        }
+
+        BookingSystem recovered = new BookingSystem();
+        Journal reopened = Journal.open(dir, recovered, Journal.Durability.ASYNC);
+        assertEquals(0, recovered.getAppointments().size());
+        recovered.getAvailableAppointmentsByPhysiotherapist("Dr. Test");
+        assertEquals(slots, recovered.getAppointments().size());
+        reopened.close();
+
+        BookingSystem again = new BookingSystem();
+        Journal.open(dir, again, Journal.Durability.ASYNC).close();
+        assertEquals(slots, again.getAppointments().size());
+        again.getAvailableAppointmentsByPhysiotherapist("Dr. Test");
+        assertEquals(slots, again.getAppointments().size());
+    }
+
+    @Test
+    void testCheckpointsWhileOthersAppendLoseNothing() throws Exception {
+        BookingSystem system = new BookingSystem();
+        Journal journal = Journal.open(dir, system, Journal.Durability.ASYNC);
+        Physiotherapist physio = new Physiotherapist(1, "Dr. Test", "Clinic Road", "123-4567");
+        system.getPhysiotherapists().add(physio);
+        Patient patient = new Patient(101, "Test Patient", "Patient Street", "987-6543");
+        system.getPatients().add(patient);
+
+        int writers = 4;
+        int perWriter = 1000;
+        LocalDateTime base = LocalDateTime.of(2030, 1, 7, 9, 0);
+        Thread[] threads = new Thread[writers];
+        for (int t = 0; t < writers; t++) {
+            int first = t * perWriter + 1;
+            threads[t] = new Thread(() -> {
+                for (int id = first; id < first + perWriter; id++) {
+                    Appointment appt = new Appointment(id, base.plusHours(id), base.plusHours(id).plusMinutes(30),
+                            "Physiotherapy", physio, null, AppointmentStatus.AVAILABLE);
+                    system.getAppointments().add(appt);
+                    if (id % 2 == 0) {
+                        system.bookAppointment(patient, appt);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        int checkpoints = 0;
+        while (checkpoints < 3 || Arrays.stream(threads).anyMatch(Thread::isAlive)) {
+            journal.checkpoint(system);
+            checkpoints++;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        // Still writing after all those segment rolls
+        system.getPatients().add(new Patient(102, "Late Patient", "Patient Street", "987-0000"));
+        journal.close();
+
+        BookingSystem recovered = new BookingSystem();
+        Journal.open(dir, recovered, Journal.Durability.ASYNC).close();
+        assertEquals(writers * perWriter, recovered.getAppointments().size());
+        assertEquals(writers * perWriter / 2, recovered.countAppointments(recovered.getPhysiotherapists().get(0),
+                AppointmentStatus.BOOKED));
+        assertNotNull(recovered.getPatientById(102));
+    }
+
+    private void assertRecovered(BookingSystem recovered) {
+        Patient patient = recovered.getPatientById(101);
+        assertNotNull(patient);
+        assertNull(recovered.getPatientById(102));
+        assertEquals(1, recovered.getPhysiotherapists().size());
+        assertEquals(5, recovered.getAppointments().size());
+        assertEquals(AppointmentStatus.BOOKED, recovered.getAppointmentById(1).getStatus());
+        assertSame(patient, recovered.getAppointmentById(1).getPatient());
+        assertEquals(AppointmentStatus.ATTENDED, recovered.getAppointmentById(2).getStatus());
+        assertEquals(AppointmentStatus.CANCELLED, recovered.getAppointmentById(3).getStatus());
+        assertEquals(AppointmentStatus.AVAILABLE, recovered.getAppointmentById(5).getStatus());
+        assertEquals(LocalDateTime.of(2030, 1, 7, 13, 0), recovered.getAppointmentById(5).getStartTime());
+        assertEquals(LocalDateTime.of(2030, 1, 7, 20, 0), recovered.getAppointmentById(1).getStartTime());
+        assertTrue(recovered.hasTimeConflict(patient, LocalDateTime.of(2030, 1, 7, 20, 30),
+                LocalDateTime.of(2030, 1, 7, 20, 45)));
+        assertFalse(recovered.hasTimeConflict(patient, LocalDateTime.of(2030, 1, 7, 9, 0),
+                LocalDateTime.of(2030, 1, 7, 9, 45)));
+        assertEquals(1, recovered.countAppointments(recovered.getPhysiotherapists().get(0),
+                AppointmentStatus.ATTENDED));
+    }
+}
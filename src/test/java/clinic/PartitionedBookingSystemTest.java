@@ -0,0 +1,96 @@
+package clinic;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class PartitionedBookingSystemTest {
+    private PartitionedBookingSystem system;
+    private Physiotherapist north;
+    private Physiotherapist south;
+    private Patient patient;
+    // Booking IDs of each therapist's three slots, from their partition's range
+    private int[] northIds;
+    private int[] southIds;
+
+    @BeforeEach
+    void setUp() {
+        system = PartitionedBookingSystem.byPhysiotherapist(4);
+        north = new Physiotherapist(1, "Dr. North", "North Clinic", "123-0001");
+        north.addExpertise("Physiotherapy");
+        south = new Physiotherapist(2, "Dr. South", "South Clinic", "123-0002");
+        south.addExpertise("Physiotherapy");
+        system.addPhysiotherapist(north);
+        system.addPhysiotherapist(south);
+        patient = new Patient(101, "Test Patient", "Patient Street", "987-6543");
+        system.addPatient(patient);
+
+        LocalDateTime base = LocalDateTime.of(2030, 1, 7, 9, 0);
+        northIds = new int[3];
+        southIds = new int[3];
+        for (int i = 0; i < 3; i++) {
+            northIds[i] = system.firstBookingId(north) + 10 + i;
+            southIds[i] = system.firstBookingId(south) + 20 + i;
+            system.addAppointment(new Appointment(northIds[i], base.plusHours(i), base.plusHours(i + 1),
+                    "Physiotherapy", north, null, AppointmentStatus.AVAILABLE));
+            system.addAppointment(new Appointment(southIds[i], base.plusHours(i).plusMinutes(30),
+                    base.plusHours(i + 1).plusMinutes(30), "Physiotherapy", south, null, AppointmentStatus.AVAILABLE));
+        }
+    }
+
+    @Test
+    void testTherapistsLiveInSeparatePartitions() {
+        assertNotSame(system.partitionOf(north), system.partitionOf(south));
+        assertSame(system.partitionOf(north), system.getPartitions().get(1));
+        assertEquals(north, system.getAppointmentById(northIds[0]).getPhysiotherapist());
+        assertEquals(south, system.getAppointmentById(southIds[1]).getPhysiotherapist());
+        LocalDateTime later = LocalDateTime.of(2030, 2, 1, 9, 0);
+        assertThrows(IllegalArgumentException.class, () -> system.addAppointment(new Appointment(southIds[0],
+                later, later.plusHours(1), "Physiotherapy", south, null, AppointmentStatus.AVAILABLE)));
+        // An ID from another partition's range is refused rather than pushing this one's generator into it
+        assertThrows(IllegalArgumentException.class, () -> system.addAppointment(new Appointment(northIds[2] + 1,
+                later, later.plusHours(1), "Physiotherapy", south, null, AppointmentStatus.AVAILABLE)));
+        Appointment generated = system.partitionOf(south).createAppointment(later, later.plusHours(1),
+                "Physiotherapy", south);
+        assertTrue(generated.getBookingId() > southIds[2], "" + generated.getBookingId());
+        assertSame(generated, system.getAppointmentById(generated.getBookingId()));
+    }
+
+    @Test
+    void testConflictsAreCheckedAcrossPartitions() {
+        assertEquals(BookingResult.BOOKED, system.bookAppointment(patient, system.getAppointmentById(northIds[0])));
+        // 09:30 with the other clinic overlaps the 09:00 booking
+        assertEquals(BookingResult.TIME_CONFLICT,
+                system.bookAppointment(patient, system.getAppointmentById(southIds[0])));
+        // Suggestions leave out the clash with the other clinic too
+        assertEquals(List.of(northIds[1], southIds[1], northIds[2]),
+                system.findEarliestSlots(patient, "Physiotherapy", null, 3).stream()
+                        .map(Appointment::getBookingId).toList());
+        assertEquals(BookingResult.BOOKED, system.bookAppointment(patient, system.getAppointmentById(southIds[1])));
+        assertFalse(system.removePatient(patient));
+
+        system.cancelAppointment(system.getAppointmentById(northIds[0]));
+        system.cancelAppointment(system.getAppointmentById(southIds[1]));
+        assertTrue(system.removePatient(patient));
+        assertNull(system.getPatientById(101));
+    }
+
+    @Test
+    void testMergedSearchAndReport() throws Exception {
+        List<Appointment> page = system.getAvailableAppointmentsByExpertise("Physiotherapy", null, 4);
+        assertEquals(List.of(northIds[0], southIds[0], northIds[1], southIds[1]),
+                page.stream().map(Appointment::getBookingId).toList());
+
+        system.bookAppointment(patient, system.getAppointmentById(southIds[1]));
+        system.attendAppointment(system.getAppointmentById(southIds[1]));
+        assertEquals(List.of(south, north), system.rankByAttended());
+
+        StringWriter out = new StringWriter();
+        system.generateReport(out, ReportWriter.Format.CSV);
+        String[] lines = out.toString().split("\n");
+        assertEquals(1 + 6 + 2, lines.length, out.toString());
+        assertTrue(lines[lines.length - 2].startsWith("ranking,Dr. South,"), out.toString());
+    }
+}